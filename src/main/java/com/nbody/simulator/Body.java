@@ -7,6 +7,7 @@ import java.util.List;
 
 public class Body {
     private String id;
+    private int handle = -1; // assigned by Simulator when added
     private double mass;
     private double radius; 
     private Color color; 
@@ -14,6 +15,11 @@ public class Body {
     private Vector2D velocity;
     private Vector2D acceleration;
     private final List<Vector2D> trail;
+    // Online trail simplification state: path length and absolute turning
+    // accumulated since the last fixed trail vertex, and the previous step.
+    private double trailSegmentLength;
+    private double trailSegmentTurning;
+    private Vector2D lastTrailStep;
 
     public Body(String id, double mass, double radius, Color color, Vector2D position, Vector2D velocity) {
         this.id = id;
@@ -28,6 +34,7 @@ public class Body {
     }
 
     public String getId() { return id; }
+    public int getHandle() { return handle; }
     public double getMass() { return mass; }
     public double getRadius() { return radius; }
     public Color getColor() { return color; }
@@ -36,24 +43,64 @@ public class Body {
     public Vector2D getAcceleration() { return acceleration; }
     public List<Vector2D> getTrail() { return Collections.unmodifiableList(trail); }
 
+    void setHandle(int handle) { this.handle = handle; }
     public void setMass(double mass) { this.mass = mass; }
     public void setPosition(Vector2D position) { this.position = position; } 
     public void setVelocity(Vector2D velocity) { this.velocity = velocity; }
     public void setAcceleration(Vector2D acceleration) { this.acceleration = acceleration; }
 
+    /**
+     * Appends a point to the trail, dropping it if the path since the last fixed
+     * vertex still fits a straight segment within TRAIL_SIMPLIFICATION_TOLERANCE.
+     * The last trail point always follows the current position; it only becomes
+     * fixed once the estimated deviation (length * turning / 8, the sagitta of a
+     * circular arc) would exceed the tolerance.
+     */
     private void addTrailPoint(Vector2D point) {
-        trail.add(new Vector2D(point.x, point.y)); 
+        Vector2D copy = new Vector2D(point.x, point.y);
+        if (trail.size() < 2) {
+            if (!trail.isEmpty()) {
+                startTrailSegment(copy.subtract(trail.get(0)));
+            }
+            trail.add(copy);
+            return;
+        }
+        int last = trail.size() - 1;
+        Vector2D step = copy.subtract(trail.get(last));
+        if (lastTrailStep != null) {
+            double cross = lastTrailStep.x * step.y - lastTrailStep.y * step.x;
+            trailSegmentTurning += Math.abs(Math.atan2(cross, lastTrailStep.dotProduct(step)));
+        }
+        trailSegmentLength += step.magnitude();
+        lastTrailStep = step;
+        if (trailSegmentLength * trailSegmentTurning / 8.0 <= Constants.TRAIL_SIMPLIFICATION_TOLERANCE) {
+            trail.set(last, copy);
+            return;
+        }
+        startTrailSegment(step);
+        trail.add(copy);
         if (trail.size() > Constants.MAX_TRAIL_LENGTH) {
             trail.remove(0);
         }
     }
 
+    private void startTrailSegment(Vector2D firstStep) {
+        trailSegmentLength = firstStep.magnitude();
+        trailSegmentTurning = 0.0;
+        lastTrailStep = firstStep;
+    }
+
     public void update(double deltaTime) {
         this.velocity = velocity.add(acceleration.scale(deltaTime));
         this.position = position.add(this.velocity.scale(deltaTime));
         addTrailPoint(this.position);
     }
 
+    // For integrators that set position and velocity directly instead of calling update()
+    public void recordTrailPoint() {
+        addTrailPoint(this.position);
+    }
+
     public void resetAcceleration() {
         this.acceleration = new Vector2D(0, 0);
     }
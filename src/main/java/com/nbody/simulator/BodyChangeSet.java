@@ -0,0 +1,29 @@
+package com.nbody.simulator;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bodies added, moved and removed between two calls to Simulator.drainChanges().
+ * Moved bodies are tracked by handle so the renderer can test only the bodies it draws.
+ */
+public class BodyChangeSet {
+    private final List<Body> added;
+    private final BitSet moved;
+    private final List<Body> removed;
+
+    BodyChangeSet(List<Body> added, BitSet moved, List<Body> removed) {
+        this.added = added;
+        this.moved = moved;
+        this.removed = removed;
+    }
+
+    public List<Body> getAdded() { return Collections.unmodifiableList(added); }
+    public List<Body> getRemoved() { return Collections.unmodifiableList(removed); }
+    public boolean isMoved(int handle) { return handle >= 0 && moved.get(handle); }
+
+    public boolean hasMembershipChanges() {
+        return !added.isEmpty() || !removed.isEmpty();
+    }
+}
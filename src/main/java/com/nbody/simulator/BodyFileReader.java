@@ -0,0 +1,142 @@
+package com.nbody.simulator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Streams rows of the body file formats one at a time. Free of JavaFX so worker JVMs
+ * in distributed mode can load their own initial conditions; BodyLoader builds Body
+ * objects on top of it.
+ *
+ * CSV rows are {@code id,mass,radius,x,y,vx,vy[,color]} where color is any
+ * Color.web string, commas included. Blank lines and lines starting with '#' are
+ * ignored, as is a first line whose mass field is not a number (a header row).
+ *
+ * The binary format is a big-endian header (magic "NBDY", int version, long count)
+ * followed by records of (UTF id, double mass, radius, x, y, vx, vy, int argb).
+ *
+ * Rows with a non-positive mass, a negative radius or a non-finite value are
+ * rejected with an IOException naming the line or record, since a single NaN
+ * would spread to every body through the force loop.
+ */
+public final class BodyFileReader {
+    static final int BINARY_MAGIC = 0x4E424459; // "NBDY"
+    static final int BINARY_VERSION = 1;
+    // Opaque light gray, for CSV rows without a color
+    public static final int DEFAULT_ARGB = 0xFFD3D3D3;
+
+    /**
+     * Receives each validated row. The color is {@code webColor} if the row has one
+     * (CSV), otherwise the packed {@code argb}. An IllegalArgumentException thrown here
+     * is reported with the row's line or record number.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(String id, double mass, double radius, double x, double y, double vx, double vy,
+                 String webColor, int argb) throws IOException;
+    }
+
+    private BodyFileReader() {}
+
+    /**
+     * Reads a file, picking the format from its extension (.csv, otherwise binary).
+     * @return the number of rows read
+     */
+    public static int read(Path path, RowHandler handler) throws IOException {
+        if (path.getFileName().toString().toLowerCase().endsWith(".csv")) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                return readCsv(reader, handler);
+            }
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return readBinary(in, handler);
+        }
+    }
+
+    public static int readCsv(Reader reader, RowHandler handler) throws IOException {
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        int read = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            // The color is last, so a limit keeps the commas of rgb(...) and hsl(...) in it
+            String[] fields = line.split(",", 8);
+            if (lineNumber == 1 && fields.length > 1 && !isNumber(fields[1])) continue;
+            if (fields.length < 7) {
+                throw new IOException("Line " + lineNumber + ": expected at least 7 fields, found " + fields.length);
+            }
+            try {
+                double mass = parse(fields[1]), radius = parse(fields[2]);
+                double x = parse(fields[3]), y = parse(fields[4]), vx = parse(fields[5]), vy = parse(fields[6]);
+                validate(mass, radius, x, y, vx, vy);
+                String webColor = fields.length > 7 ? fields[7].trim() : null;
+                handler.row(fields[0].trim(), mass, radius, x, y, vx, vy, webColor, DEFAULT_ARGB);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+            read++;
+        }
+        return read;
+    }
+
+    private static double parse(String field) {
+        return Double.parseDouble(field.trim());
+    }
+
+    private static boolean isNumber(String field) {
+        try {
+            parse(field);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public static int readBinary(InputStream in, RowHandler handler) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        if (data.readInt() != BINARY_MAGIC) throw new IOException("Not an N-body binary file");
+        int version = data.readInt();
+        if (version != BINARY_VERSION) throw new IOException("Unsupported binary version: " + version);
+        long count = data.readLong();
+
+        int read = 0;
+        try {
+            for (long i = 0; i < count; i++) {
+                String id = data.readUTF();
+                double mass = data.readDouble();
+                double radius = data.readDouble();
+                double x = data.readDouble(), y = data.readDouble();
+                double vx = data.readDouble(), vy = data.readDouble();
+                int argb = data.readInt();
+                try {
+                    validate(mass, radius, x, y, vx, vy);
+                    handler.row(id, mass, radius, x, y, vx, vy, null, argb);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Record " + (i + 1) + " (" + id + "): " + e.getMessage(), e);
+                }
+                read++;
+            }
+        } catch (EOFException e) {
+            throw new IOException("File truncated: expected " + count + " bodies", e);
+        }
+        return read;
+    }
+
+    private static void validate(double mass, double radius, double x, double y, double vx, double vy) {
+        if (!Double.isFinite(mass) || mass <= 0) throw new IllegalArgumentException("mass must be positive, was " + mass);
+        if (!Double.isFinite(radius) || radius < 0) throw new IllegalArgumentException("radius must not be negative, was " + radius);
+        if (!Double.isFinite(x) || !Double.isFinite(y)) throw new IllegalArgumentException("position is not finite");
+        if (!Double.isFinite(vx) || !Double.isFinite(vy)) throw new IllegalArgumentException("velocity is not finite");
+    }
+}
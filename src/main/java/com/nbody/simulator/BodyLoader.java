@@ -0,0 +1,135 @@
+package com.nbody.simulator;
+
+import javafx.scene.paint.Color;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Streams initial conditions from CSV or binary files into a Simulator in batches,
+ * without holding the whole file in memory. The formats and row validation are
+ * described in BodyFileReader.
+ */
+public final class BodyLoader {
+    private static final int MAX_CACHED_COLORS = 1024;
+
+    private BodyLoader() {}
+
+    /**
+     * Loads a file, picking the format from its extension (.csv, otherwise binary).
+     * @return the number of bodies added
+     */
+    public static int load(Path path, Simulator simulator) throws IOException {
+        int[] added = {0};
+        load(path, batch -> added[0] += simulator.addBodies(batch));
+        return added[0];
+    }
+
+    /**
+     * Loads a file and hands the bodies to {@code batches} in lists of up to
+     * BULK_IMPORT_BATCH_SIZE. Each list is new, so the consumer may keep it or pass it
+     * to another thread. Batches read before an error have already been delivered.
+     * @return the number of bodies read
+     */
+    public static int load(Path path, Consumer<List<Body>> batches) throws IOException {
+        Batcher batcher = new Batcher(batches);
+        BodyFileReader.read(path, batcher);
+        return batcher.finish();
+    }
+
+    public static int loadCsv(Reader reader, Consumer<List<Body>> batches) throws IOException {
+        Batcher batcher = new Batcher(batches);
+        BodyFileReader.readCsv(reader, batcher);
+        return batcher.finish();
+    }
+
+    public static int loadBinary(InputStream in, Consumer<List<Body>> batches) throws IOException {
+        Batcher batcher = new Batcher(batches);
+        BodyFileReader.readBinary(in, batcher);
+        return batcher.finish();
+    }
+
+    /**
+     * Writes bodies in the binary format read by {@link #loadBinary}.
+     */
+    public static void writeBinary(Collection<Body> bodies, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        data.writeInt(BodyFileReader.BINARY_MAGIC);
+        data.writeInt(BodyFileReader.BINARY_VERSION);
+        data.writeLong(bodies.size());
+        for (Body body : bodies) {
+            data.writeUTF(body.getId());
+            data.writeDouble(body.getMass());
+            data.writeDouble(body.getRadius());
+            data.writeDouble(body.getPosition().x);
+            data.writeDouble(body.getPosition().y);
+            data.writeDouble(body.getVelocity().x);
+            data.writeDouble(body.getVelocity().y);
+            Color c = body.getColor();
+            int argb = ((int) Math.round(c.getOpacity() * 255) << 24) | ((int) Math.round(c.getRed() * 255) << 16)
+                    | ((int) Math.round(c.getGreen() * 255) << 8) | (int) Math.round(c.getBlue() * 255);
+            data.writeInt(argb);
+        }
+        data.flush();
+    }
+
+    // Collects rows into Body batches. Files usually reuse a few colors, so one Color
+    // instance is shared per distinct color string or ARGB value.
+    private static final class Batcher implements BodyFileReader.RowHandler {
+        private final Consumer<List<Body>> batches;
+        private final Map<String, Color> webColors = new HashMap<>();
+        private final Map<Integer, Color> argbColors = new HashMap<>();
+        private List<Body> batch = new ArrayList<>(Constants.BULK_IMPORT_BATCH_SIZE);
+        private int read;
+
+        Batcher(Consumer<List<Body>> batches) {
+            this.batches = batches;
+        }
+
+        @Override
+        public void row(String id, double mass, double radius, double x, double y, double vx, double vy,
+                        String webColor, int argb) {
+            Color color = webColor != null ? webColor(webColor) : argbColor(argb);
+            batch.add(new Body(id, mass, radius, color, new Vector2D(x, y), new Vector2D(vx, vy)));
+            if (batch.size() == Constants.BULK_IMPORT_BATCH_SIZE) {
+                read += batch.size();
+                batches.accept(batch);
+                batch = new ArrayList<>(Constants.BULK_IMPORT_BATCH_SIZE);
+            }
+        }
+
+        int finish() {
+            if (!batch.isEmpty()) batches.accept(batch);
+            return read + batch.size();
+        }
+
+        private Color webColor(String web) {
+            Color color = webColors.get(web);
+            if (color == null) {
+                color = Color.web(web);
+                if (webColors.size() < MAX_CACHED_COLORS) webColors.put(web, color);
+            }
+            return color;
+        }
+
+        private Color argbColor(int argb) {
+            Color color = argbColors.get(argb);
+            if (color == null) {
+                color = Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
+                if (argbColors.size() < MAX_CACHED_COLORS) argbColors.put(argb, color);
+            }
+            return color;
+        }
+    }
+}
@@ -3,7 +3,6 @@ package com.nbody.simulator;
 import javafx.animation.AnimationTimer;
 import javafx.scene.Group;
 import javafx.scene.Node;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Cylinder;
@@ -20,6 +19,8 @@ public class CelestialBody3D {
     private double rotationSpeed = 0.2;
     private final String name;
     private final Polyline trailLine;
+    // Trails and analytic orbits are in world coordinates, so they live in parentGroup rather than bodyGroup
+    private final Polyline orbitLine;
     private final Group bodyGroup;
     private final Group parentGroup;
 
@@ -31,8 +32,8 @@ public class CelestialBody3D {
         this.bodyGroup = new Group(sphere);
         initializeBody(bodyColor);
         this.trailLine = createTrailLine(trailColor); 
-        this.bodyGroup.getChildren().add(trailLine);
-        this.parentGroup.getChildren().add(bodyGroup);
+        this.orbitLine = createTrailLine(trailColor);
+        this.parentGroup.getChildren().addAll(trailLine, orbitLine, bodyGroup);
     }
 
     // Constructor for textured bodies
@@ -43,8 +44,8 @@ public class CelestialBody3D {
         this.bodyGroup = new Group(sphere);
         initializeBodyWithTexture(texturePath);
         this.trailLine = createTrailLine(trailColor); 
-        this.bodyGroup.getChildren().add(trailLine);
-        this.parentGroup.getChildren().add(bodyGroup);
+        this.orbitLine = createTrailLine(trailColor);
+        this.parentGroup.getChildren().addAll(trailLine, orbitLine, bodyGroup);
     }
 
     private void initializeBody(Color color) {
@@ -56,15 +57,8 @@ public class CelestialBody3D {
     }
 
     private void initializeBodyWithTexture(String texturePath) {
-        PhongMaterial material = new PhongMaterial();
-        try {
-            Image textureImage = new Image(getClass().getResourceAsStream(texturePath));
-            material.setDiffuseMap(textureImage);
-        } catch (Exception e) {
-            System.err.println("Failed to load texture: " + texturePath + " for " + name + ". Using fallback color.");
-            material.setDiffuseColor(Color.DARKGRAY);
-        }
-        sphere.setMaterial(material);
+        // Shared and decoded in the background; see TextureCache
+        sphere.setMaterial(TextureCache.getMaterial(texturePath, sphere.getRadius()));
         sphere.setRotationAxis(Rotate.Y_AXIS);
         startRotation();
     }
@@ -87,41 +81,46 @@ public class CelestialBody3D {
     
     public void clearTrail() {
         trailLine.getPoints().clear();
+        orbitLine.getPoints().clear();
     }
 
     public void createOrbitalPath(List<Vector2D> orbitPoints, double zOffset) {
         // Clear existing points
         trailLine.getPoints().clear();
+        orbitLine.getPoints().clear();
         
-        // Converting orbit points to 3D coordinates
+        // Polyline takes flat (x, y) pairs; the depth goes on the node instead
         List<Double> polylinePoints = orbitPoints.stream()
-            .flatMap(p -> List.of(p.x, p.y, zOffset).stream())
+            .flatMap(p -> List.of(p.x, p.y).stream())
             .collect(Collectors.toList());
         
         // Add the first point again to close the orbit
         if (!orbitPoints.isEmpty()) {
             Vector2D firstPoint = orbitPoints.get(0);
-            polylinePoints.addAll(List.of(firstPoint.x, firstPoint.y, zOffset));
+            polylinePoints.addAll(List.of(firstPoint.x, firstPoint.y));
         }
         
-        trailLine.getPoints().setAll(polylinePoints);
-        trailLine.setStrokeWidth(1.5); // trail width
+        orbitLine.getPoints().setAll(polylinePoints);
+        orbitLine.setTranslateZ(zOffset);
+        orbitLine.setStrokeWidth(1.5); // trail width
     }
 
     // updateTrail method to support static orbital paths
     public void updateTrail(List<Vector2D> trailPoints, boolean isStaticOrbit) {
         if (trailPoints.size() < 2) {
-            trailLine.getPoints().clear();
+            clearTrail();
             return;
         }
         
         if (isStaticOrbit) {
             createOrbitalPath(trailPoints, 0.0);
         } else {
+            orbitLine.getPoints().clear();
             List<Double> polylinePoints = trailPoints.stream()
-                    .flatMap(p -> List.of(p.x, p.y, 0.0).stream())
+                    .flatMap(p -> List.of(p.x, p.y).stream())
                     .collect(Collectors.toList());
             trailLine.getPoints().setAll(polylinePoints);
+            trailLine.setStrokeWidth(Constants.TRAIL_STROKE_WIDTH);
         }
     }
 
@@ -153,6 +152,6 @@ public class CelestialBody3D {
 
     public void removeFromScene() {
         stopRotation();
-        parentGroup.getChildren().remove(bodyGroup);
+        parentGroup.getChildren().removeAll(trailLine, orbitLine, bodyGroup);
     }
 }
\ No newline at end of file
@@ -28,14 +28,47 @@ public final class Constants {
     // If 1 time unit = 1 Earth Year, then 0.001 would be about 0.365 days per step.
     public static final double TIME_STEP = 0.0005; // In Earth Years per simulation step
 
+    // Wisdom-Holman mode: the Kepler drift is exact, so steps can be ~10x longer (~1.8 days)
+    public static final double WH_TIME_STEP = 0.005; // In Earth Years per simulation step
+    // Central mass must outweigh all other bodies by this factor, else the direct integrator is used
+    public static final double WH_MIN_DOMINANCE_RATIO = 10.0;
+
     // UI related constants
     public static final double SUN_DISPLAY_RADIUS_MULTIPLIER = 50000.0; // Sun
     public static final double PLANET_DISPLAY_RADIUS_MULTIPLIER = 1000000.0; // planets
         // Visual & Trail Constants
-    public static final int MAX_TRAIL_LENGTH = 1000; 
+    public static final int MAX_TRAIL_LENGTH = 1000; // vertices kept after simplification
+    public static final double TRAIL_SIMPLIFICATION_TOLERANCE = 0.002; // AU; 0 keeps every non-collinear point
     public static final double TRAIL_STROKE_WIDTH = 0;
+    public static final int ORBIT_PATH_SEGMENTS = 360; // vertices per analytic orbit path
+    public static final double ORBIT_PATH_DRIFT_TOLERANCE = 0.01; // relative element change before regenerating
     public static final double RING_THICKNESS = 0.015; // Thickness for Saturn's ring
 
+    // Textured bodies smaller than this radius use a downscaled texture variant
+    public static final double TEXTURE_REDUCED_RADIUS = 0.05;
+    public static final int TEXTURE_REDUCED_WIDTH = 512; // pixels
+
+    // Bulk import: bodies per addBodies call, and how many get 3D nodes
+    public static final int BULK_IMPORT_BATCH_SIZE = 10000;
+    public static final int MAX_RENDERED_BODIES = 2000;
+    // New selector ids placed one by one with a binary search; larger batches are merged in one pass
+    public static final int SELECTOR_BINARY_INSERT_LIMIT = 16;
+
+    // Merge events queued for subscribers before new ones are dropped
+    public static final int MERGE_EVENT_QUEUE_CAPACITY = 8192;
+
+    // Distributed mode (worker JVMs on localhost)
+    public static final double DISTRIBUTED_OPENING_ANGLE = 0.5; // node radius / distance above which another domain gets its bodies
+    public static final int DISTRIBUTED_SNAPSHOT_MAX_BODIES = 2000;
+    public static final int DISTRIBUTED_REBALANCE_INTERVAL = 500; // steps; 0 disables re-partitioning
+    public static final int DISTRIBUTED_PARTITION_SAMPLE_SIZE = 20000; // positions the partition is computed from
+    public static final int DISTRIBUTED_VIEW_MAX_BODIES = 20000; // bodies the view keeps from snapshots
+    public static final long DISTRIBUTED_CONNECT_TIMEOUT_MS = 30000;
+
+    // Performance HUD
+    public static final long DROPPED_FRAME_NANOS = 2 * 16_666_667L; // two 60 Hz frames
+    public static final long HUD_REFRESH_NANOS = 500_000_000L;
+
     // Camera Constants
     public static final double CAMERA_INITIAL_Z = -40; // camera initially
     public static final double CAMERA_FAR_CLIP = 50000.0; // clip distance
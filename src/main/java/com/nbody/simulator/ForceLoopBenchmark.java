@@ -0,0 +1,118 @@
+package com.nbody.simulator;
+
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares PhysicsEngine's flat-array force loop against the per-pair Vector2D loop it
+ * replaced, on a Sun-plus-debris system: acceleration difference per body and
+ * force-loop throughput.
+ *
+ * Usage: {@code ForceLoopBenchmark [bodies]}
+ */
+public final class ForceLoopBenchmark {
+    private ForceLoopBenchmark() {}
+
+    public static void main(String[] args) {
+        int bodyCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        reportAccelerationError(bodyCount);
+        reportThroughput(bodyCount);
+    }
+
+    private static void reportAccelerationError(int bodyCount) {
+        List<Body> referenceBodies = createBodies(bodyCount, 42);
+        List<Body> flatBodies = createBodies(bodyCount, 42);
+        computeForces(referenceBodies, false);
+        computeForces(flatBodies, true);
+
+        double maxRelative = 0, sumSq = 0;
+        for (int i = 0; i < bodyCount; i++) {
+            Vector2D exact = referenceBodies.get(i).getAcceleration();
+            Vector2D flat = flatBodies.get(i).getAcceleration();
+            double relative = flat.subtract(exact).magnitude() / exact.magnitude();
+            maxRelative = Math.max(maxRelative, relative);
+            sumSq += relative * relative;
+        }
+        System.out.printf("Acceleration difference: max %.3e, rms %.3e (relative, %d bodies)%n",
+                maxRelative, Math.sqrt(sumSq / bodyCount), bodyCount);
+    }
+
+    private static void reportThroughput(int bodyCount) {
+        List<Body> bodies = createBodies(bodyCount, 1);
+        double pairs = (double) bodyCount * (bodyCount - 1) / 2;
+        int iterations = (int) Math.max(3, 2e8 / pairs);
+        double referenceNanos = 0, flatNanos = 0;
+        for (int round = 0; round < 3; round++) { // first round is warm-up
+            double r = time(bodies, false, iterations);
+            double f = time(bodies, true, iterations);
+            if (round > 0) {
+                referenceNanos += r;
+                flatNanos += f;
+            }
+        }
+        System.out.printf("Throughput: Vector2D %.2f ns/pair, flat %.2f ns/pair, speedup %.2fx%n",
+                referenceNanos / (2 * iterations * pairs), flatNanos / (2 * iterations * pairs), referenceNanos / flatNanos);
+    }
+
+    private static double time(List<Body> bodies, boolean flat, int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            computeForces(bodies, flat);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void computeForces(List<Body> bodies, boolean flat) {
+        if (flat) {
+            new PhysicsEngine().calculateGravitationalForcesAndHandleCollisions(bodies, new ArrayList<>());
+        } else {
+            computeForcesVector2D(bodies);
+        }
+    }
+
+    // The previous force loop, without collision handling (the benchmark bodies never touch)
+    private static void computeForcesVector2D(List<Body> bodies) {
+        for (Body body : bodies) {
+            body.resetAcceleration();
+        }
+        double G = Constants.GRAVITATIONAL_CONSTANT;
+        for (int i = 0; i < bodies.size(); i++) {
+            Body body1 = bodies.get(i);
+            for (int j = i + 1; j < bodies.size(); j++) {
+                Body body2 = bodies.get(j);
+                Vector2D r = body2.getPosition().subtract(body1.getPosition());
+                double distanceSq = Math.max(r.magnitudeSq(), Constants.MIN_DISTANCE_SQ);
+                double forceMagnitude = G * body1.getMass() * body2.getMass() / distanceSq;
+                Vector2D force = r.normalize().scale(forceMagnitude);
+                body1.setAcceleration(body1.getAcceleration().add(force.scale(1.0 / body1.getMass())));
+                body2.setAcceleration(body2.getAcceleration().add(force.scale(-1.0 / body2.getMass())));
+            }
+        }
+    }
+
+    // Sun, the giant planets and light debris between 0.5 and 35 AU on near-circular orbits
+    private static List<Body> createBodies(int count, long seed) {
+        Random random = new Random(seed);
+        List<Body> bodies = new ArrayList<>(count);
+        bodies.add(new Body("Sun", 1.0, 0.005, Color.YELLOW, new Vector2D(0, 0), new Vector2D(0, 0)));
+        double[][] planets = {{5.2, 9.548e-4}, {9.58, 2.857e-4}, {19.22, 4.366e-5}, {30.05, 5.151e-5}};
+        for (int i = 0; i < planets.length && bodies.size() < count; i++) {
+            double speed = Math.sqrt(Constants.GRAVITATIONAL_CONSTANT / planets[i][0]);
+            bodies.add(new Body("Planet-" + i, planets[i][1], 0.0005, Color.WHITE,
+                    new Vector2D(planets[i][0], 0), new Vector2D(0, speed)));
+        }
+        while (bodies.size() < count) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = 0.5 + random.nextDouble() * 34.5;
+            double speed = Math.sqrt(Constants.GRAVITATIONAL_CONSTANT / distance);
+            bodies.add(new Body("Debris-" + bodies.size(), 1e-10, 1e-6, Color.GRAY,
+                    new Vector2D(distance * Math.cos(angle), distance * Math.sin(angle)),
+                    new Vector2D(-speed * Math.sin(angle), speed * Math.cos(angle))));
+        }
+        return bodies;
+    }
+}
@@ -0,0 +1,80 @@
+package com.nbody.simulator;
+
+/**
+ * Two-body propagation in universal variables, valid for elliptic, parabolic and
+ * hyperbolic orbits. Used as the drift step of the Wisdom-Holman integrator.
+ */
+public final class KeplerSolver {
+    private static final int MAX_ITERATIONS = 50;
+    private static final double TOLERANCE = 1e-12;
+
+    private KeplerSolver() {}
+
+    /**
+     * Advances a relative state by {@code dt} around a point mass with gravitational
+     * parameter {@code mu}. The result is written back into {@code position} and {@code velocity}.
+     */
+    public static void propagate(Vector2D position, Vector2D velocity, double mu, double dt) {
+        double r0 = position.magnitude();
+        if (r0 == 0 || mu <= 0 || dt == 0) {
+            position.x += velocity.x * dt;
+            position.y += velocity.y * dt;
+            return;
+        }
+        double sqrtMu = Math.sqrt(mu);
+        double rv = position.dotProduct(velocity);
+        double alpha = 2.0 / r0 - velocity.magnitudeSq() / mu; // 1/a
+
+        // Initial guess: exact for circular orbits, reasonable otherwise
+        double chi = alpha > 0 ? sqrtMu * dt * alpha : sqrtMu * dt / r0;
+        double c = 0.5, s = 1.0 / 6.0;
+        for (int i = 0; i < MAX_ITERATIONS; i++) {
+            double chi2 = chi * chi;
+            double z = alpha * chi2;
+            c = stumpffC(z);
+            s = stumpffS(z);
+            double r = rv / sqrtMu * chi * (1.0 - z * s) + (1.0 - alpha * r0) * chi2 * c + r0;
+            double t = rv / sqrtMu * chi2 * c + (1.0 - alpha * r0) * chi2 * chi * s + r0 * chi - sqrtMu * dt;
+            double delta = t / r;
+            chi -= delta;
+            if (Math.abs(delta) <= TOLERANCE * Math.max(1.0, Math.abs(chi))) break;
+        }
+
+        double chi2 = chi * chi;
+        double z = alpha * chi2;
+        c = stumpffC(z);
+        s = stumpffS(z);
+        double f = 1.0 - chi2 / r0 * c;
+        double g = dt - chi2 * chi / sqrtMu * s;
+        double newX = f * position.x + g * velocity.x;
+        double newY = f * position.y + g * velocity.y;
+        double r = Math.sqrt(newX * newX + newY * newY);
+        double fDot = sqrtMu / (r * r0) * (z * chi * s - chi);
+        double gDot = 1.0 - chi2 / r * c;
+        double newVx = fDot * position.x + gDot * velocity.x;
+        double newVy = fDot * position.y + gDot * velocity.y;
+
+        position.x = newX;
+        position.y = newY;
+        velocity.x = newVx;
+        velocity.y = newVy;
+    }
+
+    private static double stumpffC(double z) {
+        if (z > 1e-6) return (1.0 - Math.cos(Math.sqrt(z))) / z;
+        if (z < -1e-6) return (Math.cosh(Math.sqrt(-z)) - 1.0) / -z;
+        return 0.5 - z / 24.0 + z * z / 720.0;
+    }
+
+    private static double stumpffS(double z) {
+        if (z > 1e-6) {
+            double sz = Math.sqrt(z);
+            return (sz - Math.sin(sz)) / (sz * z);
+        }
+        if (z < -1e-6) {
+            double sz = Math.sqrt(-z);
+            return (Math.sinh(sz) - sz) / (sz * -z);
+        }
+        return 1.0 / 6.0 - z / 120.0 + z * z / 5040.0;
+    }
+}
@@ -1,11 +1,16 @@
 package com.nbody.simulator;
 
+import com.nbody.simulator.distributed.BodyState;
+import com.nbody.simulator.distributed.DomainCoordinator;
+
 import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.*;
@@ -15,14 +20,29 @@ import javafx.scene.paint.Color;
 import javafx.scene.paint.PhongMaterial;
 import javafx.scene.shape.Sphere;
 import javafx.scene.transform.Rotate;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class Main extends Application {
@@ -31,9 +51,36 @@ public class Main extends Application {
     private AnimationTimer gameLoop;
     private boolean isPaused = false;
     private double simulationSpeed = 1.0;
-    private final Map<String, CelestialBody3D> celestialBody3DMap = new HashMap<>();
+    // Indexed by Body handle, null where a body has no node or no drawn orbit
+    private final List<CelestialBody3D> celestialBody3DByHandle = new ArrayList<>();
+    private final List<OrbitalElements> analyticOrbitByHandle = new ArrayList<>();
+    private final BitSet renderedHandles = new BitSet();
+    private int renderedBodyCount = 0;
+    private final Deque<Body> bodiesAwaitingNodes = new ArrayDeque<>();
+    private boolean useAnalyticOrbits = false;
     private final Random random = new Random();
     private int randomBodyCounter = 0;
+    private final MergeStatistics mergeStatistics = new MergeStatistics();
+    private MergeEventLogger mergeEventLogger;
+
+    // Bulk import parses files off the FX thread; batches are added to the simulator on it
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "body-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Distributed mode: physics runs in worker JVMs, driven from a background thread
+    private final ExecutorService distributedExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "domain-coordinator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private DomainCoordinator distributedCoordinator;
+    private Button distributedButton;
+    private Button distributedFileButton;
+    private Future<List<BodyState>> pendingDistributedStep;
+    private double pendingDistributedTime;
 
     // 3D scene components
     private Group solarSystem;
@@ -50,19 +97,33 @@ public class Main extends Application {
 
     // UI Components
     private ComboBox<String> bodySelectorComboBox;
+    private final ObservableList<String> bodySelectorItems = FXCollections.observableArrayList();
     private TextField massTextField;
     private TextField velocityXTextField;
     private TextField velocityYTextField;
     private TextField gravitationalConstantTextField;
+    private Label performanceHudLabel;
+    private Label mergeStatusLabel;
+    private long lastHudRefresh = 0;
 
 
     @Override
     public void start(Stage primaryStage) {
         mainLayout = new BorderPane();
         simulator = new Simulator();
+        simulator.getMergeEvents().subscribe(event ->
+                System.out.println("Collision! Merging " + event.getAbsorbedId() + " into " + event.getSurvivorId()));
+        simulator.getMergeEvents().subscribe(mergeStatistics);
 
         SubScene subScene3D = setup3DScene();
-        mainLayout.setCenter(subScene3D);
+        performanceHudLabel = new Label();
+        performanceHudLabel.setStyle("-fx-font-family: monospace; -fx-text-fill: white; -fx-background-color: rgba(0,0,0,0.6);");
+        performanceHudLabel.setPadding(new Insets(6));
+        performanceHudLabel.setMouseTransparent(true);
+        performanceHudLabel.setVisible(false);
+        StackPane viewPane = new StackPane(subScene3D, performanceHudLabel);
+        StackPane.setAlignment(performanceHudLabel, Pos.TOP_LEFT);
+        mainLayout.setCenter(viewPane);
 
         setupSolarSystemBodies();
 
@@ -73,7 +134,6 @@ public class Main extends Application {
         initMouseControl(subScene3D, solarSystem);
 
         startGameLoop();
-        updateBodySelector();
 
         primaryStage.setScene(scene);
         primaryStage.setTitle("Interactive Solar System Simulator");
@@ -140,7 +200,7 @@ public class Main extends Application {
         // Body Selection and Modification
         controlPanel.getChildren().add(new Separator());
         Label selectBodyLabel = new Label("Modify Celestial Body:");
-        bodySelectorComboBox = new ComboBox<>();
+        bodySelectorComboBox = new ComboBox<>(bodySelectorItems);
         bodySelectorComboBox.setPromptText("Select Body");
         bodySelectorComboBox.setMaxWidth(Double.MAX_VALUE);
         bodySelectorComboBox.setOnAction(e -> loadSelectedBodyProperties());
@@ -168,7 +228,64 @@ public class Main extends Application {
         Button addRandomBodyButton = new Button("Add Random Body");
         addRandomBodyButton.setMaxWidth(Double.MAX_VALUE);
         addRandomBodyButton.setOnAction(e -> addRandomCelestialBody());
-        controlPanel.getChildren().add(addRandomBodyButton);
+        Button importBodiesButton = new Button("Import Bodies...");
+        importBodiesButton.setMaxWidth(Double.MAX_VALUE);
+        importBodiesButton.setOnAction(e -> importBodies(importBodiesButton));
+        controlPanel.getChildren().addAll(addRandomBodyButton, importBodiesButton);
+
+        // Orbit Options
+        controlPanel.getChildren().add(new Separator());
+        CheckBox analyticOrbitsCheckBox = new CheckBox("Analytic Orbit Paths");
+        analyticOrbitsCheckBox.setOnAction(e -> {
+            useAnalyticOrbits = analyticOrbitsCheckBox.isSelected();
+            analyticOrbitByHandle.clear();
+        });
+        CheckBox symplecticCheckBox = new CheckBox("Wisdom-Holman Integrator");
+        symplecticCheckBox.setOnAction(e -> simulator.setIntegrator(
+                symplecticCheckBox.isSelected() ? Simulator.Integrator.WISDOM_HOLMAN : Simulator.Integrator.DIRECT));
+        controlPanel.getChildren().addAll(analyticOrbitsCheckBox, symplecticCheckBox);
+
+        // Performance HUD
+        controlPanel.getChildren().add(new Separator());
+        CheckBox performanceHudCheckBox = new CheckBox("Show Performance HUD");
+        performanceHudCheckBox.setOnAction(e -> performanceHudLabel.setVisible(performanceHudCheckBox.isSelected()));
+        Button exportMetricsButton = new Button("Export Metrics...");
+        exportMetricsButton.setOnAction(e -> exportMetrics());
+        HBox metricsBox = new HBox(10, performanceHudCheckBox, exportMetricsButton);
+        metricsBox.setAlignment(Pos.CENTER_LEFT);
+        controlPanel.getChildren().add(metricsBox);
+
+        // Collisions
+        controlPanel.getChildren().add(new Separator());
+        mergeStatusLabel = new Label("Merges: 0");
+        Button logMergesButton = new Button("Log Merges...");
+        logMergesButton.setOnAction(e -> toggleMergeLog(logMergesButton));
+        HBox mergeBox = new HBox(10, mergeStatusLabel, logMergesButton);
+        mergeBox.setAlignment(Pos.CENTER_LEFT);
+        controlPanel.getChildren().add(mergeBox);
+
+        // Distributed Mode
+        controlPanel.getChildren().add(new Separator());
+        Spinner<Integer> workerCountSpinner = new Spinner<>(1, 16, 4);
+        workerCountSpinner.setPrefWidth(80);
+        distributedButton = new Button("Start Distributed");
+        distributedFileButton = new Button("From File...");
+        distributedButton.setOnAction(e -> {
+            if (distributedCoordinator == null) startDistributed(workerCountSpinner.getValue(), null);
+            else stopDistributed();
+        });
+        distributedFileButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Distribute Bodies From File");
+            fileChooser.getExtensionFilters().addAll(
+                    new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                    new FileChooser.ExtensionFilter("Binary Files", "*.bin", "*.nbody"));
+            File file = fileChooser.showOpenDialog(scene.getWindow());
+            if (file != null) startDistributed(workerCountSpinner.getValue(), file.toPath());
+        });
+        HBox distributedBox = new HBox(10, new Label("Workers:"), workerCountSpinner, distributedButton, distributedFileButton);
+        distributedBox.setAlignment(Pos.CENTER_LEFT);
+        controlPanel.getChildren().add(distributedBox);
 
         // Pause Button
         controlPanel.getChildren().add(new Separator());
@@ -213,7 +330,9 @@ public class Main extends Application {
             body.setMass(newMass);
             body.setVelocity(new Vector2D(newVelX, newVelY));
             // Clear trail
-            celestialBody3DMap.get(selectedBodyId).clearTrail();
+            CelestialBody3D body3D = getByHandle(celestialBody3DByHandle, body.getHandle());
+            if (body3D != null) body3D.clearTrail();
+            setByHandle(analyticOrbitByHandle, body.getHandle(), null);
             System.out.println("Applied changes to: " + selectedBodyId);
         } catch (NumberFormatException ex) {
             showErrorDialog("Invalid Input", "Please enter valid numbers.");
@@ -237,33 +356,228 @@ public class Main extends Application {
         Color trailColor = Color.BLACK; // Trail color set to black
 
         createAndAddCelestialBody(name, displayRadius, bodyColor, trailColor, mass, posX, posY, velX, velY, 0.1);
-        updateBodySelector();
+    }
+
+    private void importBodies(Button importBodiesButton) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Bodies");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("Binary Files", "*.bin", "*.nbody"));
+        File file = fileChooser.showOpenDialog(scene.getWindow());
+        if (file == null) return;
+        importBodiesButton.setDisable(true);
+        int[] added = {0}; // only touched on the FX thread
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return BodyLoader.load(file.toPath(), batch -> Platform.runLater(() -> added[0] += simulator.addBodies(batch)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, importExecutor).whenComplete((read, error) -> Platform.runLater(() -> {
+            importBodiesButton.setDisable(false);
+            if (error != null) {
+                Throwable cause = error.getCause() instanceof UncheckedIOException ? error.getCause().getCause() : error;
+                String partial = added[0] > 0 ? "\n" + added[0] + " bodies read before the error were added." : "";
+                showErrorDialog("Import Failed", cause.getMessage() + partial);
+                return;
+            }
+            System.out.println("Imported " + added[0] + " bodies from " + file.getName());
+        }));
+    }
+
+    private void exportMetrics() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Metrics");
+        fileChooser.setInitialFileName("metrics.csv");
+        File file = fileChooser.showSaveDialog(scene.getWindow());
+        if (file == null) return;
+        try (Writer writer = Files.newBufferedWriter(file.toPath())) {
+            simulator.getMetrics().writeCsv(writer);
+        } catch (IOException ex) {
+            showErrorDialog("Export Failed", ex.getMessage());
+        }
+    }
+
+    private void toggleMergeLog(Button logMergesButton) {
+        if (mergeEventLogger != null) {
+            closeMergeLog();
+            logMergesButton.setText("Log Merges...");
+            return;
+        }
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Log Merges");
+        fileChooser.setInitialFileName("merges.csv");
+        File file = fileChooser.showSaveDialog(scene.getWindow());
+        if (file == null) return;
+        try {
+            mergeEventLogger = new MergeEventLogger(file.toPath());
+            simulator.getMergeEvents().subscribe(mergeEventLogger);
+            logMergesButton.setText("Stop Logging");
+        } catch (IOException ex) {
+            showErrorDialog("Log Failed", ex.getMessage());
+        }
+    }
+
+    private void closeMergeLog() {
+        if (mergeEventLogger == null) return;
+        simulator.getMergeEvents().unsubscribe(mergeEventLogger);
+        try {
+            mergeEventLogger.close();
+        } catch (IOException ex) {
+            System.err.println("Failed to close merge log: " + ex.getMessage());
+        }
+        mergeEventLogger = null;
+    }
+
+    // Hands the current bodies, or those in a file, to worker JVMs; collisions are not simulated
+    // while distributed. With a file the workers load it themselves, and the view is rebuilt
+    // from snapshots alone. Local bodies outside the coordinator's viewed subset are removed,
+    // since no snapshot would update them.
+    private void startDistributed(int workerCount, Path file) {
+        List<BodyState> states = file != null ? null
+                : simulator.getBodies().stream().map(BodyState::from).collect(Collectors.toList());
+        distributedButton.setDisable(true);
+        distributedFileButton.setDisable(true);
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return file != null ? new DomainCoordinator(file, workerCount, true) : new DomainCoordinator(states, workerCount, true);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }, distributedExecutor).whenComplete((coordinator, error) -> Platform.runLater(() -> {
+            distributedButton.setDisable(false);
+            if (error != null) {
+                distributedFileButton.setDisable(false);
+                Throwable cause = error.getCause() instanceof UncheckedIOException ? error.getCause().getCause() : error;
+                showErrorDialog("Distributed Mode Failed", cause.getMessage());
+                return;
+            }
+            if (file != null) simulator.reset();
+            else simulator.retainBodies(body -> coordinator.isViewed(body.getId()));
+            distributedCoordinator = coordinator;
+            distributedButton.setText("Stop Distributed");
+        }));
+    }
+
+    // Pulls the final state back into the local simulator if it fits in the view, otherwise
+    // keeps the displayed sample. Blocks until the workers reply.
+    private void stopDistributed() {
+        DomainCoordinator coordinator = endDistributed();
+        try {
+            List<BodyState> finalState = distributedExecutor.submit(() ->
+                    coordinator.getBodyCount() <= Constants.DISTRIBUTED_VIEW_MAX_BODIES ? coordinator.collectAll() : null).get();
+            if (finalState != null) {
+                simulator.applySnapshot(finalState, 0);
+            } else {
+                System.err.println("Warning: Distributed run is too large to bring back; keeping the displayed sample.");
+            }
+        } catch (ExecutionException ex) {
+            showErrorDialog("Distributed Mode Failed", ex.getCause().getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            distributedExecutor.submit(coordinator::close);
+        }
+    }
+
+    // Leaves distributed mode and returns the coordinator, which the caller must close
+    private DomainCoordinator endDistributed() {
+        DomainCoordinator coordinator = distributedCoordinator;
+        distributedCoordinator = null;
+        pendingDistributedStep = null;
+        distributedButton.setText("Start Distributed");
+        distributedFileButton.setDisable(false);
+        return coordinator;
+    }
+
+    // Applies the last finished batch of distributed steps and queues the next one
+    private void advanceDistributed(double frameTime, int steps) {
+        if (pendingDistributedStep != null) {
+            if (!pendingDistributedStep.isDone()) return;
+            try {
+                List<BodyState> snapshot = pendingDistributedStep.get();
+                simulator.applySnapshot(snapshot, pendingDistributedTime);
+            } catch (ExecutionException ex) {
+                // The workers' message stream is out of step or a worker is gone; the run cannot continue
+                distributedExecutor.submit(endDistributed()::close);
+                String message = String.valueOf(ex.getCause().getMessage());
+                Platform.runLater(() -> showErrorDialog("Distributed Mode Failed", "A distributed step failed: " + message));
+                return;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        DomainCoordinator coordinator = distributedCoordinator;
+        pendingDistributedTime = frameTime;
+        pendingDistributedStep = distributedExecutor.submit(() -> coordinator.advance(frameTime, steps));
+    }
+
+    // Creates a node for a body that was added without one (e.g. imported). Bodies beyond
+    // MAX_RENDERED_BODIES wait until removals free up room.
+    private void createLazyBody3D(Body body) {
+        if (renderedBodyCount >= Constants.MAX_RENDERED_BODIES) {
+            bodiesAwaitingNodes.add(body);
+            return;
+        }
+        CelestialBody3D body3D = new CelestialBody3D(body.getId(), body.getRadius(), body.getColor(), Color.BLACK, solarSystem);
+        body3D.setPosition(body.getPosition().x, body.getPosition().y, 0);
+        addRenderedBody(body.getHandle(), body3D);
+    }
+
+    private void addRenderedBody(int handle, CelestialBody3D body3D) {
+        setByHandle(celestialBody3DByHandle, handle, body3D);
+        renderedHandles.set(handle);
+        renderedBodyCount++;
+    }
+
+    private void removeRenderedBody(int handle) {
+        setByHandle(analyticOrbitByHandle, handle, null);
+        CelestialBody3D body3D = getByHandle(celestialBody3DByHandle, handle);
+        if (body3D == null) return;
+        body3D.removeFromScene();
+        celestialBody3DByHandle.set(handle, null);
+        renderedHandles.clear(handle);
+        renderedBodyCount--;
+    }
+
+    private static <T> T getByHandle(List<T> byHandle, int handle) {
+        return handle >= 0 && handle < byHandle.size() ? byHandle.get(handle) : null;
+    }
+
+    private static <T> void setByHandle(List<T> byHandle, int handle, T value) {
+        if (handle >= byHandle.size()) {
+            if (value == null) return;
+            byHandle.addAll(Collections.nCopies(handle + 1 - byHandle.size(), null));
+        }
+        byHandle.set(handle, value);
     }
 
     // Overload for colored bodies
-    private void createAndAddCelestialBody(String name, double displayRadius, Color bodyColor, Color trailColor,
+    private CelestialBody3D createAndAddCelestialBody(String name, double displayRadius, Color bodyColor, Color trailColor,
                                            double mass, double initialX, double initialY,
                                            double initialVelX, double initialVelY,
                                            double visualRotationSpeed) {
         CelestialBody3D body3D = new CelestialBody3D(name, displayRadius, bodyColor, trailColor, solarSystem);
-        setupCelestialBody(body3D, name, mass, displayRadius, initialX, initialY, initialVelX, initialVelY, visualRotationSpeed);
+        return setupCelestialBody(body3D, name, mass, displayRadius, initialX, initialY, initialVelX, initialVelY, visualRotationSpeed);
     }
 
     // Overload for textured bodies
-    private void createAndAddCelestialBody(String name, double displayRadius, String texturePath, Color trailColor,
+    private CelestialBody3D createAndAddCelestialBody(String name, double displayRadius, String texturePath, Color trailColor,
                                            double mass, double initialX, double initialY,
                                            double initialVelX, double initialVelY,
                                            double visualRotationSpeed) {
         CelestialBody3D body3D = new CelestialBody3D(name, displayRadius, texturePath, trailColor, solarSystem);
-        setupCelestialBody(body3D, name, mass, displayRadius, initialX, initialY, initialVelX, initialVelY, visualRotationSpeed);
+        return setupCelestialBody(body3D, name, mass, displayRadius, initialX, initialY, initialVelX, initialVelY, visualRotationSpeed);
     }
 
-    private void setupCelestialBody(CelestialBody3D body3D, String name, double mass, double displayRadius,
+    // Returns null if the simulator rejected the body (duplicate id)
+    private CelestialBody3D setupCelestialBody(CelestialBody3D body3D, String name, double mass, double displayRadius,
                                     double initialX, double initialY, double initialVelX, double initialVelY,
                                     double visualRotationSpeed) {
         body3D.setPosition(initialX, initialY, 0);
         body3D.setRotationSpeed(visualRotationSpeed);
-        celestialBody3DMap.put(name, body3D);
 
         Color physicsBodyColor = Color.GRAY; // Fallback for the Body object
         Node node = body3D.getNode();
@@ -277,8 +591,15 @@ public class Main extends Application {
             }
         }
         
-        simulator.addBody(new Body(name, mass, displayRadius, physicsBodyColor,
-                new Vector2D(initialX, initialY), new Vector2D(initialVelX, initialVelY)));
+        Body body = new Body(name, mass, displayRadius, physicsBodyColor,
+                new Vector2D(initialX, initialY), new Vector2D(initialVelX, initialVelY));
+        simulator.addBody(body);
+        if (body.getHandle() < 0) {
+            body3D.removeFromScene();
+            return null;
+        }
+        addRenderedBody(body.getHandle(), body3D);
+        return body3D;
     }
 
     private void setupSolarSystemBodies() {
@@ -330,8 +651,7 @@ public class Main extends Application {
 
         double saturnX = 9.58; double saturnMass = 2.857e-4;
         double saturnVel = Math.sqrt(Constants.GRAVITATIONAL_CONSTANT * sunMass / saturnX);
-        createAndAddCelestialBody("Saturn", saturnDisplayRadius, Color.KHAKI, saturnTrailColor, saturnMass, saturnX, 0, 0, saturnVel, 0.08);
-        CelestialBody3D saturn3D = celestialBody3DMap.get("Saturn");
+        CelestialBody3D saturn3D = createAndAddCelestialBody("Saturn", saturnDisplayRadius, Color.KHAKI, saturnTrailColor, saturnMass, saturnX, 0, 0, saturnVel, 0.08);
         if (saturn3D != null) saturn3D.addRing(saturnDisplayRadius * 1.5, saturnDisplayRadius * 2.2, Color.rgb(220,220,190,0.5));
 
         double uranusX = 19.22; double uranusMass = 4.366e-5;
@@ -348,47 +668,152 @@ public class Main extends Application {
             @Override
             public void handle(long now) {
                 if (!isPaused) {
-                    int steps = (int) Math.max(1, Math.ceil(simulationSpeed));
-                    double timeStepPerPhysicsUpdate = Constants.TIME_STEP * (simulationSpeed / steps);
-
-                    for (int i = 0; i < steps; i++) {
-                        simulator.update(timeStepPerPhysicsUpdate);
-                    }
-
-                    List<String> removedBodyIds = simulator.processRemovals();
-                    if (!removedBodyIds.isEmpty()) {
-                        removedBodyIds.forEach(id -> {
-                            CelestialBody3D cBody3D = celestialBody3DMap.remove(id);
-                            if (cBody3D != null) cBody3D.removeFromScene();
-                        });
-                        updateBodySelector();
-                        if (bodySelectorComboBox.getValue() != null && removedBodyIds.contains(bodySelectorComboBox.getValue())) {
-                            bodySelectorComboBox.setValue(null);
-                            massTextField.clear();
-                            velocityXTextField.clear();
-                            velocityYTextField.clear();
+                    double frameTime = Constants.TIME_STEP * simulationSpeed;
+                    int steps = simulator.getIntegrator() == Simulator.Integrator.WISDOM_HOLMAN
+                            ? (int) Math.max(1, Math.ceil(frameTime / Constants.WH_TIME_STEP))
+                            : (int) Math.max(1, Math.ceil(simulationSpeed));
+                    double timeStepPerPhysicsUpdate = frameTime / steps;
+                    PerformanceMetrics metrics = simulator.getMetrics();
+                    metrics.startFrame(now, steps);
+                    SimulationFrameEvent frameEvent = new SimulationFrameEvent();
+                    frameEvent.begin();
+
+                    long physicsStart = System.nanoTime();
+                    if (distributedCoordinator != null) {
+                        advanceDistributed(frameTime, steps);
+                    } else {
+                        for (int i = 0; i < steps; i++) {
+                            simulator.update(timeStepPerPhysicsUpdate);
                         }
                     }
 
-                    for (Body body : simulator.getBodies()) {
-                        CelestialBody3D body3D = celestialBody3DMap.get(body.getId());
-                        if (body3D != null) {
-                            body3D.setPosition(body.getPosition().x, body.getPosition().y, 0);
-                            body3D.updateTrail(body.getTrail(), false);
-                        }
+                    long removalStart = System.nanoTime();
+                    simulator.processRemovals();
+
+                    long syncStart = System.nanoTime();
+                    long trailNanos = applySceneChanges(simulator.drainChanges());
+                    long syncEnd = System.nanoTime();
+                    metrics.record(PerformanceMetrics.Stage.SCENE_SYNC, syncEnd - syncStart);
+                    metrics.record(PerformanceMetrics.Stage.TRAILS, trailNanos);
+
+                    frameEvent.end();
+                    if (frameEvent.shouldCommit()) {
+                        frameEvent.physicsSteps = steps;
+                        frameEvent.bodyCount = simulator.getBodies().size();
+                        frameEvent.physicsNanos = removalStart - physicsStart;
+                        frameEvent.removalNanos = syncStart - removalStart;
+                        frameEvent.sceneSyncNanos = syncEnd - syncStart;
+                        frameEvent.commit();
                     }
+                } else {
+                    simulator.getMetrics().resetFrameBaseline();
+                    // Bodies added or imported while paused should still appear
+                    applySceneChanges(simulator.drainChanges());
+                }
+                if (now - lastHudRefresh > Constants.HUD_REFRESH_NANOS) {
+                    if (performanceHudLabel.isVisible()) {
+                        performanceHudLabel.setText(simulator.getMetrics().formatSummary());
+                    }
+                    mergeStatusLabel.setText("Merges: " + mergeStatistics.getMergeCount());
+                    lastHudRefresh = now;
                 }
             }
         };
         gameLoop.start();
     }
+
+    /**
+     * Applies one frame of simulator changes to the scene: creates and removes nodes,
+     * then updates only rendered bodies that moved. Returns the nanoseconds spent on trails.
+     */
+    private long applySceneChanges(BodyChangeSet changes) {
+        if (changes.hasMembershipChanges()) {
+            for (Body body : changes.getAdded()) {
+                if (!renderedHandles.get(body.getHandle())) createLazyBody3D(body);
+            }
+            for (Body body : changes.getRemoved()) {
+                removeRenderedBody(body.getHandle());
+            }
+            while (renderedBodyCount < Constants.MAX_RENDERED_BODIES && !bodiesAwaitingNodes.isEmpty()) {
+                Body body = bodiesAwaitingNodes.poll();
+                if (simulator.getBodyByHandle(body.getHandle()) == body) createLazyBody3D(body);
+            }
+            updateBodySelector(changes);
+        }
+
+        long trailNanos = 0;
+        Body centralBody = useAnalyticOrbits ? simulator.getDominantBody().orElse(null) : null;
+        for (int handle = renderedHandles.nextSetBit(0); handle >= 0; handle = renderedHandles.nextSetBit(handle + 1)) {
+            if (!changes.isMoved(handle)) continue;
+            Body body = simulator.getBodyByHandle(handle);
+            CelestialBody3D body3D = celestialBody3DByHandle.get(handle);
+            body3D.setPosition(body.getPosition().x, body.getPosition().y, 0);
+            long trailStart = System.nanoTime();
+            if (!updateAnalyticOrbit(body, centralBody, body3D)) {
+                body3D.updateTrail(body.getTrail(), false);
+            }
+            trailNanos += System.nanoTime() - trailStart;
+        }
+        return trailNanos;
+    }
     
-    private void updateBodySelector() {
-        List<String> bodyNames = simulator.getBodies().stream()
-                                        .map(Body::getId)
-                                        .sorted()
-                                        .collect(Collectors.toList());
-        bodySelectorComboBox.setItems(FXCollections.observableArrayList(bodyNames));
+    // Draws a closed Keplerian path around the central body, regenerating it only when
+    // the elements drift (merges, mass or G edits). Returns false if a dynamic trail is needed.
+    private boolean updateAnalyticOrbit(Body body, Body centralBody, CelestialBody3D body3D) {
+        if (centralBody == null || body == centralBody) return false;
+        OrbitalElements elements = OrbitalElements.fromState(body, centralBody, Constants.GRAVITATIONAL_CONSTANT);
+        if (elements == null) {
+            setByHandle(analyticOrbitByHandle, body.getHandle(), null);
+            return false;
+        }
+        OrbitalElements drawn = getByHandle(analyticOrbitByHandle, body.getHandle());
+        if (drawn == null || drawn.hasDriftedFrom(elements, Constants.ORBIT_PATH_DRIFT_TOLERANCE)) {
+            body3D.updateTrail(elements.samplePath(Constants.ORBIT_PATH_SEGMENTS), true);
+            setByHandle(analyticOrbitByHandle, body.getHandle(), elements);
+        }
+        return true;
+    }
+
+    // Applies a frame's additions and removals to the selector list in one pass instead of rebuilding it
+    private void updateBodySelector(BodyChangeSet changes) {
+        if (!changes.getRemoved().isEmpty()) {
+            Set<String> removedIds = changes.getRemoved().stream().map(Body::getId).collect(Collectors.toSet());
+            bodySelectorItems.removeAll(removedIds);
+            if (bodySelectorComboBox.getValue() != null && removedIds.contains(bodySelectorComboBox.getValue())) {
+                bodySelectorComboBox.setValue(null);
+                massTextField.clear();
+                velocityXTextField.clear();
+                velocityYTextField.clear();
+            }
+        }
+        if (!changes.getAdded().isEmpty()) {
+            List<String> addedIds = changes.getAdded().stream()
+                                           .filter(b -> simulator.getBodyByHandle(b.getHandle()) == b)
+                                           .map(Body::getId)
+                                           .sorted()
+                                           .collect(Collectors.toList());
+            insertSorted(addedIds);
+        }
+    }
+
+    // Adds sorted ids to the already sorted selector list without re-sorting it: a few ids are
+    // placed by binary search, a large batch is merged with the existing run in one pass.
+    private void insertSorted(List<String> sortedIds) {
+        if (sortedIds.size() <= Constants.SELECTOR_BINARY_INSERT_LIMIT) {
+            for (String id : sortedIds) {
+                int index = Collections.binarySearch(bodySelectorItems, id);
+                bodySelectorItems.add(index < 0 ? -index - 1 : index, id);
+            }
+            return;
+        }
+        List<String> merged = new ArrayList<>(bodySelectorItems.size() + sortedIds.size());
+        int i = 0, j = 0;
+        while (i < bodySelectorItems.size() && j < sortedIds.size()) {
+            merged.add(bodySelectorItems.get(i).compareTo(sortedIds.get(j)) <= 0 ? bodySelectorItems.get(i++) : sortedIds.get(j++));
+        }
+        merged.addAll(bodySelectorItems.subList(i, bodySelectorItems.size()));
+        merged.addAll(sortedIds.subList(j, sortedIds.size()));
+        bodySelectorItems.setAll(merged);
     }
 
     private void initMouseControl(Node eventNode, Group groupToTransform) {
@@ -426,6 +851,16 @@ public class Main extends Application {
         alert.showAndWait();
     }
 
+    @Override
+    public void stop() {
+        if (gameLoop != null) gameLoop.stop();
+        simulator.getMergeEvents().close();
+        if (distributedCoordinator != null) distributedExecutor.submit(distributedCoordinator::close);
+        distributedExecutor.shutdown();
+        importExecutor.shutdownNow();
+        closeMergeLog();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
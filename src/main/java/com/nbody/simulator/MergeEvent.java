@@ -0,0 +1,38 @@
+package com.nbody.simulator;
+
+/**
+ * A collision in which {@code absorbedId} was merged into {@code survivorId}.
+ * Masses are before the merge; momentum is the survivor's after it.
+ */
+public final class MergeEvent {
+    private final double simulationTime;
+    private final String survivorId;
+    private final String absorbedId;
+    private final double survivorMass;
+    private final double absorbedMass;
+    private final Vector2D momentum;
+
+    public MergeEvent(double simulationTime, String survivorId, String absorbedId,
+                      double survivorMass, double absorbedMass, Vector2D momentum) {
+        this.simulationTime = simulationTime;
+        this.survivorId = survivorId;
+        this.absorbedId = absorbedId;
+        this.survivorMass = survivorMass;
+        this.absorbedMass = absorbedMass;
+        this.momentum = momentum;
+    }
+
+    public double getSimulationTime() { return simulationTime; }
+    public String getSurvivorId() { return survivorId; }
+    public String getAbsorbedId() { return absorbedId; }
+    public double getSurvivorMass() { return survivorMass; }
+    public double getAbsorbedMass() { return absorbedMass; }
+    public double getMergedMass() { return survivorMass + absorbedMass; }
+    public Vector2D getMomentum() { return momentum; }
+
+    @Override
+    public String toString() {
+        return String.format("MergeEvent[t=%.4f, %s <- %s, m=%.3e+%.3e, p=(%.3e,%.3e)]",
+                simulationTime, survivorId, absorbedId, survivorMass, absorbedMass, momentum.x, momentum.y);
+    }
+}
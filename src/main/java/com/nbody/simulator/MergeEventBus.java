@@ -0,0 +1,101 @@
+package com.nbody.simulator;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Hands merge events from the physics loop to subscribers on a background thread.
+ * publish() never blocks: events go into a bounded lock-free queue and are dropped
+ * (and counted) when it is full. Subscribers run on the dispatcher thread and must
+ * hop to the JavaFX thread themselves if they touch the UI.
+ */
+public class MergeEventBus implements AutoCloseable {
+    private final Queue<MergeEvent> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final List<Consumer<MergeEvent>> subscribers = new CopyOnWriteArrayList<>();
+    private final int capacity;
+    private volatile Thread dispatcher;
+    private volatile boolean closed;
+
+    public MergeEventBus(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void subscribe(Consumer<MergeEvent> subscriber) {
+        subscribers.add(subscriber);
+        if (dispatcher == null && !closed) {
+            Thread thread = new Thread(this::dispatchLoop, "merge-event-dispatcher");
+            thread.setDaemon(true);
+            dispatcher = thread;
+            thread.start();
+        }
+    }
+
+    public void unsubscribe(Consumer<MergeEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Queues an event for the subscribers. Returns false if it was dropped because
+     * the queue is full, there are no subscribers or the bus is closed.
+     */
+    public boolean publish(MergeEvent event) {
+        Thread thread = dispatcher;
+        if (thread == null || closed) return false;
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        queue.offer(event);
+        LockSupport.unpark(thread);
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void dispatchLoop() {
+        while (!closed || !queue.isEmpty()) {
+            MergeEvent event = queue.poll();
+            if (event == null) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
+                continue;
+            }
+            size.decrementAndGet();
+            for (Consumer<MergeEvent> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    System.err.println("Merge event subscriber failed: " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting events and waits briefly for queued ones to be delivered.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = dispatcher;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.nbody.simulator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Merge event subscriber appending one CSV row per event to a file. Events that
+ * arrive after close() are ignored: the bus may still be delivering to a subscriber
+ * list taken before it was unsubscribed.
+ */
+public class MergeEventLogger implements Consumer<MergeEvent>, AutoCloseable {
+    private final BufferedWriter writer;
+    private boolean closed; // guarded by this
+
+    public MergeEventLogger(Path path) throws IOException {
+        this.writer = Files.newBufferedWriter(path);
+        writer.write("time,survivor,absorbed,survivor_mass,absorbed_mass,momentum_x,momentum_y\n");
+    }
+
+    @Override
+    public synchronized void accept(MergeEvent event) {
+        if (closed) return;
+        try {
+            writer.write(String.format("%s,%s,%s,%s,%s,%s,%s%n", event.getSimulationTime(), event.getSurvivorId(),
+                    event.getAbsorbedId(), event.getSurvivorMass(), event.getAbsorbedMass(),
+                    event.getMomentum().x, event.getMomentum().y));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        writer.close();
+    }
+}
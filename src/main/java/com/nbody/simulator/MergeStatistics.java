@@ -0,0 +1,24 @@
+package com.nbody.simulator;
+
+import java.util.function.Consumer;
+
+/**
+ * Merge event subscriber keeping running totals. Updated on the dispatcher thread,
+ * safe to read from any thread.
+ */
+public class MergeStatistics implements Consumer<MergeEvent> {
+    private volatile long mergeCount;
+    private volatile double absorbedMass;
+    private volatile MergeEvent lastEvent;
+
+    @Override
+    public void accept(MergeEvent event) {
+        mergeCount++;
+        absorbedMass += event.getAbsorbedMass();
+        lastEvent = event;
+    }
+
+    public long getMergeCount() { return mergeCount; }
+    public double getAbsorbedMass() { return absorbedMass; }
+    public MergeEvent getLastEvent() { return lastEvent; }
+}
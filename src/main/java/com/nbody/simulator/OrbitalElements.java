@@ -0,0 +1,93 @@
+package com.nbody.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Osculating Keplerian elements of a body relative to a central body, used to
+ * draw closed analytic orbit paths instead of per-frame dynamic trails.
+ */
+public final class OrbitalElements {
+    private final double semiMajorAxis;
+    private final double eccentricity;
+    private final double argumentOfPeriapsis;
+    private final boolean prograde;
+    private final Vector2D focus;
+
+    private OrbitalElements(double semiMajorAxis, double eccentricity, double argumentOfPeriapsis,
+                            boolean prograde, Vector2D focus) {
+        this.semiMajorAxis = semiMajorAxis;
+        this.eccentricity = eccentricity;
+        this.argumentOfPeriapsis = argumentOfPeriapsis;
+        this.prograde = prograde;
+        this.focus = focus;
+    }
+
+    /**
+     * Derives the elements of {@code body} around {@code central} from their current
+     * positions and velocities. Returns null if the relative orbit is not a closed ellipse.
+     */
+    public static OrbitalElements fromState(Body body, Body central, double G) {
+        double mu = G * (central.getMass() + body.getMass());
+        if (mu <= 0) return null;
+        Vector2D r = body.getPosition().subtract(central.getPosition());
+        Vector2D v = body.getVelocity().subtract(central.getVelocity());
+        double distance = r.magnitude();
+        if (distance == 0) return null;
+
+        double energy = v.magnitudeSq() / 2.0 - mu / distance;
+        if (energy >= 0) return null;
+        double semiMajorAxis = -mu / (2.0 * energy);
+
+        Vector2D eVector = r.scale(v.magnitudeSq() / mu - 1.0 / distance)
+                            .subtract(v.scale(r.dotProduct(v) / mu));
+        double eccentricity = eVector.magnitude();
+        if (eccentricity >= 1.0) return null;
+
+        double angularMomentum = r.x * v.y - r.y * v.x;
+        double argumentOfPeriapsis = Math.atan2(eVector.y, eVector.x);
+        Vector2D focus = new Vector2D(central.getPosition().x, central.getPosition().y);
+        return new OrbitalElements(semiMajorAxis, eccentricity, argumentOfPeriapsis, angularMomentum >= 0, focus);
+    }
+
+    /**
+     * Samples the ellipse at evenly spaced eccentric anomalies, in simulation coordinates.
+     */
+    public List<Vector2D> samplePath(int segments) {
+        List<Vector2D> points = new ArrayList<>(segments);
+        double semiMinorAxis = semiMajorAxis * Math.sqrt(1.0 - eccentricity * eccentricity);
+        double cosW = Math.cos(argumentOfPeriapsis);
+        double sinW = Math.sin(argumentOfPeriapsis);
+        double direction = prograde ? 1.0 : -1.0;
+        for (int i = 0; i < segments; i++) {
+            double E = 2.0 * Math.PI * i / segments;
+            double px = semiMajorAxis * (Math.cos(E) - eccentricity);
+            double py = direction * semiMinorAxis * Math.sin(E);
+            points.add(new Vector2D(focus.x + px * cosW - py * sinW, focus.y + px * sinW + py * cosW));
+        }
+        return points;
+    }
+
+    /**
+     * True if {@code other} differs enough from these elements that a path drawn
+     * from them would visibly disagree with the orbit. {@code tolerance} is relative
+     * to the semi-major axis.
+     */
+    public boolean hasDriftedFrom(OrbitalElements other, double tolerance) {
+        if (prograde != other.prograde) return true;
+        if (Math.abs(other.semiMajorAxis - semiMajorAxis) > tolerance * semiMajorAxis) return true;
+        if (Math.abs(other.eccentricity - eccentricity) > tolerance) return true;
+        double dw = Math.abs(Math.IEEEremainder(other.argumentOfPeriapsis - argumentOfPeriapsis, 2.0 * Math.PI));
+        if (eccentricity * dw > tolerance) return true;
+        return other.focus.subtract(focus).magnitude() > tolerance * semiMajorAxis;
+    }
+
+    public double getSemiMajorAxis() { return semiMajorAxis; }
+    public double getEccentricity() { return eccentricity; }
+    public double getArgumentOfPeriapsis() { return argumentOfPeriapsis; }
+
+    @Override
+    public String toString() {
+        return String.format("OrbitalElements[a=%.4f, e=%.4f, w=%.3f]", semiMajorAxis, eccentricity, argumentOfPeriapsis);
+    }
+}
@@ -0,0 +1,98 @@
+package com.nbody.simulator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Per-stage timing histograms for the game loop. Stages are recorded by Simulator
+ * (physics, removals) and by the renderer (scene sync, trails, frame interval).
+ * Not thread-safe; everything runs on the JavaFX application thread.
+ */
+public class PerformanceMetrics {
+    public enum Stage { PHYSICS, REMOVALS, SCENE_SYNC, TRAILS, FRAME_INTERVAL }
+
+    private final Map<Stage, LatencyHistogram> stageHistograms = new EnumMap<>(Stage.class);
+    private final LatencyHistogram stepsPerFrame = new LatencyHistogram();
+    private long lastFrameStart;
+    private long frames;
+    private long droppedFrames;
+
+    public PerformanceMetrics() {
+        for (Stage stage : Stage.values()) {
+            stageHistograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    public void record(Stage stage, long nanos) {
+        stageHistograms.get(stage).record(nanos);
+    }
+
+    /**
+     * Marks the start of a frame. The interval since the previous frame is recorded,
+     * and counted as dropped if it exceeds DROPPED_FRAME_NANOS.
+     */
+    public void startFrame(long now, int physicsSteps) {
+        if (lastFrameStart != 0) {
+            long interval = now - lastFrameStart;
+            record(Stage.FRAME_INTERVAL, interval);
+            if (interval > Constants.DROPPED_FRAME_NANOS) droppedFrames++;
+        }
+        lastFrameStart = now;
+        stepsPerFrame.record(physicsSteps);
+        frames++;
+    }
+
+    /**
+     * Forgets the previous frame start, so the next startFrame records no interval.
+     * Called while paused; otherwise the whole pause would count as one dropped frame.
+     */
+    public void resetFrameBaseline() {
+        lastFrameStart = 0;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) { return stageHistograms.get(stage); }
+    public LatencyHistogram getStepsPerFrame() { return stepsPerFrame; }
+    public long getFrames() { return frames; }
+    public long getDroppedFrames() { return droppedFrames; }
+
+    public void reset() {
+        stageHistograms.values().forEach(LatencyHistogram::reset);
+        stepsPerFrame.reset();
+        lastFrameStart = 0;
+        frames = 0;
+        droppedFrames = 0;
+    }
+
+    /**
+     * Short multi-line summary for the on-screen overlay, in milliseconds.
+     */
+    public String formatSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = stageHistograms.get(stage);
+            sb.append(String.format("%-14s mean %6.2f  p99 %6.2f  max %6.2f ms%n", stage,
+                    h.getMean() / 1e6, h.getValueAtPercentile(99) / 1e6, h.getMax() / 1e6));
+        }
+        sb.append(String.format("Steps/frame    mean %6.1f  max %d%n", stepsPerFrame.getMean(), stepsPerFrame.getMax()));
+        sb.append(String.format("Frames %d, dropped %d", frames, droppedFrames));
+        return sb.toString();
+    }
+
+    /**
+     * Writes one CSV row per stage with count, mean, percentiles and max in nanoseconds.
+     */
+    public void writeCsv(Writer writer) throws IOException {
+        writer.write("stage,count,mean_ns,p50_ns,p90_ns,p99_ns,max_ns\n");
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = stageHistograms.get(stage);
+            writer.write(String.format("%s,%d,%.0f,%d,%d,%d,%d%n", stage, h.getCount(), h.getMean(),
+                    h.getValueAtPercentile(50), h.getValueAtPercentile(90), h.getValueAtPercentile(99), h.getMax()));
+        }
+        writer.write(String.format("STEPS_PER_FRAME,%d,%.2f,%d,%d,%d,%d%n", stepsPerFrame.getCount(), stepsPerFrame.getMean(),
+                stepsPerFrame.getValueAtPercentile(50), stepsPerFrame.getValueAtPercentile(90),
+                stepsPerFrame.getValueAtPercentile(99), stepsPerFrame.getMax()));
+        writer.write(String.format("DROPPED_FRAMES,%d,,,,,%n", droppedFrames));
+    }
+}
@@ -1,43 +1,91 @@
 package com.nbody.simulator;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 public class PhysicsEngine {
+    private MergeEventBus mergeEventBus;
+    private double simulationTime;
+
+    public void setMergeEventBus(MergeEventBus mergeEventBus) { this.mergeEventBus = mergeEventBus; }
+    // Timestamp attached to merge events published during the next force calculation
+    public void setSimulationTime(double simulationTime) { this.simulationTime = simulationTime; }
 
     public List<Body> calculateGravitationalForcesAndHandleCollisions(List<Body> bodies, List<Body> bodiesToRemove) {
-        for (Body body : bodies) {
-            body.resetAcceleration();
-        }
+        return calculateGravitationalForcesAndHandleCollisions(bodies, bodiesToRemove, null);
+    }
+
+    /**
+     * Same as above, but pairs involving {@code centralBody} are only checked for
+     * collisions: their mutual force is left to the caller (e.g. a Kepler drift).
+     *
+     * Positions, masses and accelerations are copied into flat arrays so the pair loop
+     * does not allocate; touching pairs fall back to the Body objects to merge.
+     */
+    public List<Body> calculateGravitationalForcesAndHandleCollisions(List<Body> bodies, List<Body> bodiesToRemove, Body centralBody) {
+        int n = bodies.size();
         double G = Constants.GRAVITATIONAL_CONSTANT;
-        for (int i = 0; i < bodies.size(); i++) {
-            Body body1 = bodies.get(i);
-            if (bodiesToRemove.contains(body1)) continue;
-            for (int j = i + 1; j < bodies.size(); j++) {
-                Body body2 = bodies.get(j);
-                if (bodiesToRemove.contains(body2)) continue;
-                Vector2D r = body2.getPosition().subtract(body1.getPosition());
-                double distanceSq = r.magnitudeSq();
-                if (distanceSq < Constants.MIN_DISTANCE_SQ) {
-                    distanceSq = Constants.MIN_DISTANCE_SQ;
-                }
-                double distance = Math.sqrt(distanceSq);
-                if (distance < (body1.getRadius() + body2.getRadius())) {
+        double[] px = new double[n];
+        double[] py = new double[n];
+        double[] radius = new double[n];
+        double[] mass = new double[n];
+        double[] ax = new double[n];
+        double[] ay = new double[n];
+        boolean[] removed = new boolean[n];
+        int centralIndex = centralBody == null ? -1 : bodies.indexOf(centralBody);
+        Set<Body> removedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+        removedSet.addAll(bodiesToRemove);
+        for (int i = 0; i < n; i++) {
+            Body body = bodies.get(i);
+            px[i] = body.getPosition().x;
+            py[i] = body.getPosition().y;
+            radius[i] = body.getRadius();
+            mass[i] = body.getMass();
+            removed[i] = removedSet.contains(body);
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (removed[i]) continue;
+            boolean iCentral = i == centralIndex;
+            for (int j = i + 1; j < n; j++) {
+                if (removed[j]) continue;
+                double dx = px[j] - px[i];
+                double dy = py[j] - py[i];
+                double distanceSq = Math.max(dx * dx + dy * dy, Constants.MIN_DISTANCE_SQ);
+                double radiusSum = radius[i] + radius[j];
+                if (distanceSq < radiusSum * radiusSum) {
+                    Body body1 = bodies.get(i);
+                    Body body2 = bodies.get(j);
                     handleMergeCollision(body1, body2, bodiesToRemove);
-                    if (bodiesToRemove.contains(body1) || bodiesToRemove.contains(body2)) {
-                        continue; 
+                    removed[i] = bodiesToRemove.contains(body1);
+                    removed[j] = bodiesToRemove.contains(body2);
+                    if (removed[i] || removed[j]) {
+                        // The survivor's mass changed; later pairs must see it
+                        mass[i] = body1.getMass();
+                        mass[j] = body2.getMass();
+                        if (removed[i]) break;
+                        continue;
                     }
                 }
-                double forceMagnitude = G * body1.getMass() * body2.getMass() / distanceSq;
-                Vector2D force = r.normalize().scale(forceMagnitude);
-                body1.setAcceleration(body1.getAcceleration().add(force.scale(1.0 / body1.getMass())));
-                body2.setAcceleration(body2.getAcceleration().add(force.scale(-1.0 / body2.getMass())));
+                if (iCentral || j == centralIndex) continue;
+                double scale = G / (distanceSq * Math.sqrt(distanceSq));
+                ax[i] += mass[j] * dx * scale;
+                ay[i] += mass[j] * dy * scale;
+                ax[j] -= mass[i] * dx * scale;
+                ay[j] -= mass[i] * dy * scale;
             }
         }
+
+        for (int i = 0; i < n; i++) {
+            bodies.get(i).setAcceleration(new Vector2D(ax[i], ay[i]));
+        }
         return bodiesToRemove;
     }
-    
+
     private void handleMergeCollision(Body body1, Body body2, List<Body> bodiesToRemove) {
         Body survivor, absorbed;
         if (body1.getMass() >= body2.getMass()) {
@@ -50,12 +98,16 @@ public class PhysicsEngine {
         if (bodiesToRemove.contains(survivor) || bodiesToRemove.contains(absorbed)) {
             return;
         }
-        System.out.println("Collision! Merging " + absorbed.getId() + " into " + survivor.getId());
+        double survivorMass = survivor.getMass();
         Vector2D finalVelocity = survivor.getVelocity().scale(survivor.getMass())
                                  .add(absorbed.getVelocity().scale(absorbed.getMass()))
                                  .scale(1.0 / (survivor.getMass() + absorbed.getMass()));
         survivor.setMass(survivor.getMass() + absorbed.getMass());
         survivor.setVelocity(finalVelocity);
+        if (mergeEventBus != null) {
+            mergeEventBus.publish(new MergeEvent(simulationTime, survivor.getId(), absorbed.getId(),
+                    survivorMass, absorbed.getMass(), finalVelocity.scale(survivor.getMass())));
+        }
         if (!bodiesToRemove.contains(absorbed)) {
             bodiesToRemove.add(absorbed);
         }
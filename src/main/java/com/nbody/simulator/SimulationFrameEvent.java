@@ -0,0 +1,36 @@
+package com.nbody.simulator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event emitted once per game loop frame. Enable with
+ * {@code -XX:StartFlightRecording} to profile stage timings in production sessions.
+ */
+@Name("com.nbody.simulator.Frame")
+@Label("Simulation Frame")
+@Category({"N-Body Simulator"})
+@Description("Per-frame physics, removal and scene sync timings")
+public class SimulationFrameEvent extends Event {
+    @Label("Physics Steps")
+    public int physicsSteps;
+
+    @Label("Body Count")
+    public int bodyCount;
+
+    @Label("Physics Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long physicsNanos;
+
+    @Label("Removal Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long removalNanos;
+
+    @Label("Scene Sync Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long sceneSyncNanos;
+}
@@ -1,34 +1,103 @@
 package com.nbody.simulator;
 
+import com.nbody.simulator.distributed.BodyState;
+
+import javafx.scene.paint.Color;
+
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class Simulator {
+    public enum Integrator { DIRECT, WISDOM_HOLMAN }
+
     private List<Body> bodies;
+    private final Map<String, Body> bodiesById;
     private PhysicsEngine physicsEngine;
+    private WisdomHolmanIntegrator wisdomHolmanIntegrator;
+    private Integrator integrator = Integrator.DIRECT;
+    private final PerformanceMetrics metrics = new PerformanceMetrics();
+    private final MergeEventBus mergeEvents = new MergeEventBus(Constants.MERGE_EVENT_QUEUE_CAPACITY);
     private double simulationTime;
     private List<Body> bodiesToRemoveNextStep;
 
+    // Change tracking for the renderer; handles index bodiesByHandle and are never reused
+    private final List<Body> bodiesByHandle = new ArrayList<>();
+    private List<Body> addedSinceDrain = new ArrayList<>();
+    private List<Body> removedSinceDrain = new ArrayList<>();
+    private BitSet movedSinceDrain = new BitSet();
+
     public Simulator() {
         this.bodies = new ArrayList<>();
+        this.bodiesById = new HashMap<>();
         this.physicsEngine = new PhysicsEngine();
+        this.physicsEngine.setMergeEventBus(mergeEvents);
+        this.wisdomHolmanIntegrator = new WisdomHolmanIntegrator(physicsEngine);
         this.simulationTime = 0.0;
         this.bodiesToRemoveNextStep = new ArrayList<>();
     }
 
     public void addBody(Body body) {
-        if (bodies.stream().noneMatch(b -> b.getId().equals(body.getId()))) {
+        if (bodiesById.putIfAbsent(body.getId(), body) == null) {
             this.bodies.add(body);
+            registerHandle(body);
         } else {
             System.err.println("Warning: Body with ID " + body.getId() + " already exists. Not adding.");
         }
     }
+
+    /**
+     * Adds a batch of bodies in one pass. Bodies whose id already exists, either in
+     * the simulation or earlier in the same batch, are skipped.
+     * @return the number of bodies added
+     */
+    public int addBodies(Collection<Body> batch) {
+        List<Body> accepted = new ArrayList<>(batch.size());
+        int duplicates = 0;
+        for (Body body : batch) {
+            if (bodiesById.putIfAbsent(body.getId(), body) == null) {
+                accepted.add(body);
+                registerHandle(body);
+            } else {
+                duplicates++;
+            }
+        }
+        bodies.addAll(accepted);
+        if (duplicates > 0) {
+            System.err.println("Warning: Skipped " + duplicates + " bodies with duplicate IDs.");
+        }
+        return accepted.size();
+    }
+    
+    private void registerHandle(Body body) {
+        body.setHandle(bodiesByHandle.size());
+        bodiesByHandle.add(body);
+        addedSinceDrain.add(body);
+    }
     
     public Optional<Body> getBodyById(String id) {
-        return bodies.stream().filter(b -> b.getId().equals(id)).findFirst();
+        return Optional.ofNullable(bodiesById.get(id));
+    }
+
+    /**
+     * Returns the body with the given handle, or null if it has been removed.
+     */
+    public Body getBodyByHandle(int handle) {
+        return handle >= 0 && handle < bodiesByHandle.size() ? bodiesByHandle.get(handle) : null;
+    }
+
+    public Optional<Body> getDominantBody() {
+        return bodies.stream().max(Comparator.comparingDouble(Body::getMass));
     }
 
     public List<Body> getBodies() {
@@ -37,33 +106,125 @@ public class Simulator {
 
     public void update(double deltaTime) {
         if (bodies.isEmpty()) return;
-        physicsEngine.calculateGravitationalForcesAndHandleCollisions(bodies, bodiesToRemoveNextStep);
+        long start = System.nanoTime();
+        physicsEngine.setSimulationTime(simulationTime);
+        if (integrator != Integrator.WISDOM_HOLMAN
+                || !wisdomHolmanIntegrator.step(bodies, bodiesToRemoveNextStep, deltaTime)) {
+            wisdomHolmanIntegrator.invalidateForces();
+            physicsEngine.calculateGravitationalForcesAndHandleCollisions(bodies, bodiesToRemoveNextStep);
+            for (Body body : bodies) {
+                if (!bodiesToRemoveNextStep.contains(body)) {
+                    body.update(deltaTime);
+                }
+            }
+        }
         for (Body body : bodies) {
-            if (!bodiesToRemoveNextStep.contains(body)) {
-                body.update(deltaTime);
+            movedSinceDrain.set(body.getHandle());
+        }
+        simulationTime += deltaTime;
+        metrics.record(PerformanceMetrics.Stage.PHYSICS, System.nanoTime() - start);
+    }
+
+    /**
+     * Applies a sample of bodies from an external source (e.g. a distributed run) and
+     * advances the clock. Known bodies are overwritten and unknown ids are added, so a
+     * view can be filled from snapshots alone. The source should report a fixed subset of
+     * ids; unknown ids beyond DISTRIBUTED_VIEW_MAX_BODIES bodies are ignored rather than
+     * displacing bodies already shown.
+     */
+    public void applySnapshot(List<BodyState> states, double deltaTime) {
+        for (BodyState state : states) {
+            Body body = bodiesById.get(state.id);
+            if (body == null) {
+                if (bodies.size() >= Constants.DISTRIBUTED_VIEW_MAX_BODIES) continue;
+                body = new Body(state.id, state.mass, state.radius, Color.LIGHTGRAY,
+                        new Vector2D(state.x, state.y), new Vector2D(state.vx, state.vy));
+                addBody(body);
+            } else {
+                body.setPosition(new Vector2D(state.x, state.y));
+                body.setVelocity(new Vector2D(state.vx, state.vy));
+                body.recordTrailPoint();
+                movedSinceDrain.set(body.getHandle());
             }
         }
+        wisdomHolmanIntegrator.invalidateForces();
         simulationTime += deltaTime;
     }
+
+    /**
+     * Queues every body that fails {@code keep} for removal at the next processRemovals,
+     * e.g. local bodies a distributed view will not receive updates for.
+     */
+    public void retainBodies(Predicate<Body> keep) {
+        Set<Body> queued = new HashSet<>(bodiesToRemoveNextStep);
+        for (Body body : bodies) {
+            if (!keep.test(body) && !queued.contains(body)) {
+                bodiesToRemoveNextStep.add(body);
+            }
+        }
+    }
+
+    public Integrator getIntegrator() {
+        return integrator;
+    }
+
+    public void setIntegrator(Integrator integrator) {
+        this.integrator = integrator;
+    }
     
     public List<String> processRemovals() {
+        long start = System.nanoTime();
         List<String> removedIds = new ArrayList<>();
         if (!bodiesToRemoveNextStep.isEmpty()) {
+            bodies.removeAll(new HashSet<>(bodiesToRemoveNextStep));
             for (Body bodyToRemove : bodiesToRemoveNextStep) {
-                bodies.remove(bodyToRemove);
+                bodiesById.remove(bodyToRemove.getId());
+                unregisterHandle(bodyToRemove);
                 removedIds.add(bodyToRemove.getId());
             }
             bodiesToRemoveNextStep.clear();
         }
+        metrics.record(PerformanceMetrics.Stage.REMOVALS, System.nanoTime() - start);
         return removedIds;
     }
 
+    private void unregisterHandle(Body body) {
+        bodiesByHandle.set(body.getHandle(), null);
+        movedSinceDrain.clear(body.getHandle());
+        removedSinceDrain.add(body);
+    }
+
+    /**
+     * Returns the bodies added, moved and removed since the previous call, and starts
+     * a new change set. Meant to be called once per rendered frame.
+     */
+    public BodyChangeSet drainChanges() {
+        BodyChangeSet changes = new BodyChangeSet(addedSinceDrain, movedSinceDrain, removedSinceDrain);
+        addedSinceDrain = new ArrayList<>();
+        movedSinceDrain = new BitSet(bodiesByHandle.size());
+        removedSinceDrain = new ArrayList<>();
+        return changes;
+    }
+
     public void reset() {
+        bodies.forEach(this::unregisterHandle);
         bodies.clear();
+        bodiesById.clear();
         bodiesToRemoveNextStep.clear();
         simulationTime = 0.0;
     }
 
+    /**
+     * Merge events from collisions, delivered to subscribers off the simulation thread.
+     */
+    public MergeEventBus getMergeEvents() {
+        return mergeEvents;
+    }
+
+    public PerformanceMetrics getMetrics() {
+        return metrics;
+    }
+
     public double getSimulationTime() {
         return simulationTime;
     }
@@ -0,0 +1,63 @@
+package com.nbody.simulator;
+
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Shares texture materials between bodies. Each texture path is decoded once per
+ * resolution, in the background, and bodies below TEXTURE_REDUCED_RADIUS get a
+ * downscaled variant. Materials show a placeholder color until the image is ready.
+ * Must be used from the JavaFX application thread.
+ */
+public final class TextureCache {
+    private static final Color PLACEHOLDER_COLOR = Color.DARKGRAY;
+    private static final Map<String, PhongMaterial> materials = new HashMap<>();
+
+    private TextureCache() {}
+
+    /**
+     * Returns the shared material for a texture, picking the resolution from the
+     * body's display radius.
+     */
+    public static PhongMaterial getMaterial(String texturePath, double displayRadius) {
+        int requestedWidth = displayRadius < Constants.TEXTURE_REDUCED_RADIUS ? Constants.TEXTURE_REDUCED_WIDTH : 0;
+        return materials.computeIfAbsent(texturePath + "@" + requestedWidth, key -> loadMaterial(texturePath, requestedWidth));
+    }
+
+    private static PhongMaterial loadMaterial(String texturePath, int requestedWidth) {
+        PhongMaterial material = new PhongMaterial(PLACEHOLDER_COLOR);
+        URL url = TextureCache.class.getResource(texturePath);
+        if (url == null) {
+            System.err.println("Failed to load texture: " + texturePath + ". Using fallback color.");
+            return material;
+        }
+        // Width 0 keeps the original size; smooth downscaling happens during decode
+        Image image = new Image(url.toExternalForm(), requestedWidth, 0, true, true, true);
+        if (image.getProgress() >= 1.0) {
+            applyTexture(material, image, texturePath);
+        } else {
+            image.progressProperty().addListener((obs, oldVal, newVal) -> {
+                if (newVal.doubleValue() >= 1.0) applyTexture(material, image, texturePath);
+            });
+        }
+        return material;
+    }
+
+    private static void applyTexture(PhongMaterial material, Image image, String texturePath) {
+        if (image.isError()) {
+            System.err.println("Failed to load texture: " + texturePath + ". Using fallback color.");
+            return;
+        }
+        material.setDiffuseColor(Color.WHITE);
+        material.setDiffuseMap(image);
+    }
+
+    public static void clear() {
+        materials.clear();
+    }
+}
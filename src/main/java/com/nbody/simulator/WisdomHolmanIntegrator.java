@@ -0,0 +1,176 @@
+package com.nbody.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mixed-variable symplectic integrator (Wisdom-Holman, democratic heliocentric
+ * coordinates) for systems dominated by one central mass. Each step is
+ * kick / jump / Kepler drift / jump / kick: the central attraction is solved
+ * exactly by KeplerSolver, so only the small body-body interactions limit the
+ * timestep.
+ */
+public class WisdomHolmanIntegrator {
+    private final PhysicsEngine physicsEngine;
+
+    // The closing kick's accelerations are the next step's opening ones as long as no
+    // body, mass, position or G changed in between. These record what they were computed for.
+    private final List<Body> forceBodies = new ArrayList<>();
+    private double[] forceMasses = new double[0];
+    private Body forceCentral;
+    private double forceG;
+
+    public WisdomHolmanIntegrator(PhysicsEngine physicsEngine) {
+        this.physicsEngine = physicsEngine;
+    }
+
+    /**
+     * Advances all bodies not scheduled for removal by {@code deltaTime}.
+     * Returns false without touching any body if there is no sufficiently dominant
+     * central mass, in which case the caller should use the direct integrator.
+     */
+    public boolean step(List<Body> bodies, List<Body> bodiesToRemove, double deltaTime) {
+        Body central = findCentralBody(bodies);
+        if (central == null) {
+            invalidateForces();
+            return false;
+        }
+
+        if (!forcesCurrent(bodies, bodiesToRemove, central)) {
+            physicsEngine.calculateGravitationalForcesAndHandleCollisions(bodies, bodiesToRemove, central);
+        }
+        List<Body> planets = new ArrayList<>();
+        for (Body body : bodies) {
+            if (body != central && !bodiesToRemove.contains(body)) planets.add(body);
+        }
+        kick(planets, deltaTime / 2.0);
+        drift(central, planets, deltaTime);
+        physicsEngine.calculateGravitationalForcesAndHandleCollisions(bodies, bodiesToRemove, central);
+        kick(planets, deltaTime / 2.0);
+        rememberForces(bodies, bodiesToRemove, central);
+
+        central.recordTrailPoint();
+        for (Body planet : planets) {
+            if (!bodiesToRemove.contains(planet)) planet.recordTrailPoint();
+        }
+        return true;
+    }
+
+    /**
+     * Forgets the cached accelerations. Call when positions or accelerations were
+     * changed outside this integrator (another integrator ran, a snapshot was applied).
+     */
+    public void invalidateForces() {
+        forceBodies.clear();
+        forceCentral = null;
+    }
+
+    // A merge leaves bodies pending removal and changes a mass, so only a clean step is cached
+    private void rememberForces(List<Body> bodies, List<Body> bodiesToRemove, Body central) {
+        invalidateForces();
+        if (!bodiesToRemove.isEmpty()) return;
+        forceBodies.addAll(bodies);
+        if (forceMasses.length != bodies.size()) forceMasses = new double[bodies.size()];
+        for (int i = 0; i < bodies.size(); i++) {
+            forceMasses[i] = bodies.get(i).getMass();
+        }
+        forceCentral = central;
+        forceG = Constants.GRAVITATIONAL_CONSTANT;
+    }
+
+    private boolean forcesCurrent(List<Body> bodies, List<Body> bodiesToRemove, Body central) {
+        if (forceCentral != central || forceG != Constants.GRAVITATIONAL_CONSTANT || !bodiesToRemove.isEmpty()
+                || forceBodies.size() != bodies.size()) {
+            return false;
+        }
+        for (int i = 0; i < bodies.size(); i++) {
+            Body body = bodies.get(i);
+            if (forceBodies.get(i) != body || forceMasses[i] != body.getMass()) return false;
+        }
+        return true;
+    }
+
+    private Body findCentralBody(List<Body> bodies) {
+        if (bodies.size() < 2) return null;
+        Body central = null;
+        double totalMass = 0;
+        for (Body body : bodies) {
+            totalMass += body.getMass();
+            if (central == null || body.getMass() > central.getMass()) central = body;
+        }
+        double otherMass = totalMass - central.getMass();
+        return central.getMass() >= Constants.WH_MIN_DOMINANCE_RATIO * otherMass ? central : null;
+    }
+
+    // Interaction accelerations are pairwise between planets, so the kick leaves the
+    // total planetary momentum, and hence the central body's velocity, unchanged.
+    private void kick(List<Body> planets, double dt) {
+        for (Body planet : planets) {
+            planet.setVelocity(planet.getVelocity().add(planet.getAcceleration().scale(dt)));
+        }
+    }
+
+    private void drift(Body central, List<Body> planets, double dt) {
+        double centralMass = central.getMass();
+        double mu = Constants.GRAVITATIONAL_CONSTANT * centralMass;
+
+        // Barycentric frame
+        double totalMass = centralMass;
+        Vector2D massPosition = central.getPosition().scale(centralMass);
+        Vector2D momentum = central.getVelocity().scale(centralMass);
+        for (Body planet : planets) {
+            totalMass += planet.getMass();
+            massPosition = massPosition.add(planet.getPosition().scale(planet.getMass()));
+            momentum = momentum.add(planet.getVelocity().scale(planet.getMass()));
+        }
+        Vector2D centerOfMass = massPosition.scale(1.0 / totalMass);
+        Vector2D centerOfMassVelocity = momentum.scale(1.0 / totalMass);
+
+        // Heliocentric positions, barycentric velocities
+        int n = planets.size();
+        Vector2D[] q = new Vector2D[n];
+        Vector2D[] p = new Vector2D[n];
+        for (int i = 0; i < n; i++) {
+            Body planet = planets.get(i);
+            q[i] = planet.getPosition().subtract(central.getPosition());
+            p[i] = planet.getVelocity().subtract(centerOfMassVelocity);
+        }
+
+        jump(planets, q, p, centralMass, dt / 2.0);
+        for (int i = 0; i < n; i++) {
+            KeplerSolver.propagate(q[i], p[i], mu, dt);
+        }
+        jump(planets, q, p, centralMass, dt / 2.0);
+
+        // Back to the inertial frame; the barycenter moves uniformly
+        centerOfMass = centerOfMass.add(centerOfMassVelocity.scale(dt));
+        Vector2D weightedQ = new Vector2D(0, 0);
+        Vector2D weightedP = new Vector2D(0, 0);
+        for (int i = 0; i < n; i++) {
+            double m = planets.get(i).getMass();
+            weightedQ = weightedQ.add(q[i].scale(m));
+            weightedP = weightedP.add(p[i].scale(m));
+        }
+        Vector2D centralPosition = centerOfMass.subtract(weightedQ.scale(1.0 / totalMass));
+        central.setPosition(centralPosition);
+        central.setVelocity(centerOfMassVelocity.subtract(weightedP.scale(1.0 / centralMass)));
+        for (int i = 0; i < n; i++) {
+            Body planet = planets.get(i);
+            planet.setPosition(centralPosition.add(q[i]));
+            planet.setVelocity(centerOfMassVelocity.add(p[i]));
+        }
+    }
+
+    // Linear drift of the heliocentric positions from the central body's recoil
+    private void jump(List<Body> planets, Vector2D[] q, Vector2D[] p, double centralMass, double dt) {
+        Vector2D shift = new Vector2D(0, 0);
+        for (int i = 0; i < q.length; i++) {
+            shift = shift.add(p[i].scale(planets.get(i).getMass()));
+        }
+        shift = shift.scale(dt / centralMass);
+        for (int i = 0; i < q.length; i++) {
+            q[i].x += shift.x;
+            q[i].y += shift.y;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.nbody.simulator.distributed;
+
+import com.nbody.simulator.Body;
+
+/**
+ * Plain, JavaFX-free copy of a body's physical state, used by worker JVMs and on the wire.
+ */
+public class BodyState {
+    public final String id;
+    public final double mass;
+    public final double radius;
+    public double x, y;
+    public double vx, vy;
+
+    public BodyState(String id, double mass, double radius, double x, double y, double vx, double vy) {
+        this.id = id;
+        this.mass = mass;
+        this.radius = radius;
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+    }
+
+    public static BodyState from(Body body) {
+        return new BodyState(body.getId(), body.getMass(), body.getRadius(),
+                body.getPosition().x, body.getPosition().y, body.getVelocity().x, body.getVelocity().y);
+    }
+
+    /**
+     * Hash of {@code id} as an unsigned value, mixed so that sequential ids spread evenly;
+     * used to pick a stable view subset by modulus.
+     */
+    static long viewHash(String id) {
+        int h = id.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BodyState[%s, m=%.2e, p=(%.2f,%.2f), v=(%.2f,%.2f)]", id, mass, x, y, vx, vy);
+    }
+}
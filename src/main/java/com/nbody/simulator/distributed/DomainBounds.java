@@ -0,0 +1,44 @@
+package com.nbody.simulator.distributed;
+
+/**
+ * Axis-aligned region owned by one worker, half-open: [minX, maxX) x [minY, maxY).
+ * Outer domains extend to infinity so every position belongs to exactly one domain.
+ */
+public class DomainBounds {
+    public final double minX, maxX, minY, maxY;
+
+    public DomainBounds(double minX, double maxX, double minY, double maxY) {
+        this.minX = minX;
+        this.maxX = maxX;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    public static DomainBounds unbounded() {
+        return new DomainBounds(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    public boolean contains(double x, double y) {
+        return x >= minX && x < maxX && y >= minY && y < maxY;
+    }
+
+    /**
+     * Distance from a point to the nearest point of this region; zero inside it.
+     */
+    public double distanceTo(double x, double y) {
+        double dx = Math.max(Math.max(minX - x, x - maxX), 0);
+        double dy = Math.max(Math.max(minY - y, y - maxY), 0);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    DomainBounds withMaxX(double split) { return new DomainBounds(minX, split, minY, maxY); }
+    DomainBounds withMinX(double split) { return new DomainBounds(split, maxX, minY, maxY); }
+    DomainBounds withMaxY(double split) { return new DomainBounds(minX, maxX, minY, split); }
+    DomainBounds withMinY(double split) { return new DomainBounds(minX, maxX, split, maxY); }
+
+    @Override
+    public String toString() {
+        return String.format("DomainBounds[x=[%.2f,%.2f), y=[%.2f,%.2f)]", minX, maxX, minY, maxY);
+    }
+}
@@ -0,0 +1,446 @@
+package com.nbody.simulator.distributed;
+
+import com.nbody.simulator.BodyFileReader;
+import com.nbody.simulator.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.URISyntaxException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Runs a simulation partitioned across worker JVMs on this machine. Bodies are
+ * split by orthogonal recursive bisection; each step the coordinator relays what
+ * every domain prepared for each other domain (multipole summaries of well-separated
+ * tree nodes, bodies of the rest), routes migrating
+ * bodies to their new owner, and optionally gathers a downsampled snapshot for
+ * the view. Snapshots only ever report a fixed subset of at most about
+ * DISTRIBUTED_VIEW_MAX_BODIES ids (see {@link #isViewed}), a slice of it each time. Domains are re-partitioned every DISTRIBUTED_REBALANCE_INTERVAL steps
+ * from a position sample, moving only the bodies whose owner changes.
+ *
+ * The full state lives only in the workers: this process holds bounded samples,
+ * the cross-domain fields and bodies in transit, unless {@link #collectAll} is called.
+ *
+ * Not thread-safe: drive it from one thread.
+ */
+public class DomainCoordinator implements AutoCloseable {
+    private final ServerSocketChannel server;
+    private final List<SocketChannel> workers = new ArrayList<>();
+    private final List<Process> workerProcesses = new ArrayList<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+
+    private List<DomainBounds> domains;
+    // fields[from][to]: what domain 'from' reported for domain 'to'
+    private Field[][] fields;
+    private List<List<BodyState>> pendingMigrants;
+    private int[] bodyCounts;
+    private long stepCount;
+    private long snapshotCount; // rotates the sampling offset; stepCount may share a factor with the stride
+    private int viewStride = 1; // fixed at startup so the viewed subset never changes
+
+    /**
+     * Starts {@code workerCount} workers, either as separate JVMs or as threads in this
+     * JVM (both talk over localhost sockets), and distributes {@code bodies} among them.
+     */
+    public DomainCoordinator(List<BodyState> bodies, int workerCount, boolean separateJvms) throws IOException {
+        this(workerCount, separateJvms);
+        try {
+            initialize(bodies, bodies, null);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts workers that load their own bodies from {@code initialConditions}, in any
+     * format BodyFileReader reads. This process only reads the file once for a bounded
+     * position sample to partition on, which also validates every row up front.
+     */
+    public DomainCoordinator(Path initialConditions, int workerCount, boolean separateJvms) throws IOException {
+        this(workerCount, separateJvms);
+        try {
+            initialize(samplePositions(initialConditions), Collections.emptyList(), initialConditions.toAbsolutePath());
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private DomainCoordinator(int workerCount, boolean separateJvms) throws IOException {
+        if (workerCount < 1) throw new IllegalArgumentException("workerCount must be at least 1");
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        int port = ((InetSocketAddress) server.getLocalAddress()).getPort();
+        String host = InetAddress.getLoopbackAddress().getHostAddress();
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                if (separateJvms) {
+                    workerProcesses.add(launchWorkerJvm(host, port));
+                } else {
+                    Thread thread = new Thread(() -> runWorker(host, port), "domain-worker-" + i);
+                    thread.setDaemon(true);
+                    thread.start();
+                    workerThreads.add(thread);
+                }
+            }
+            acceptWorkers(workerCount);
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private static void runWorker(String host, int port) {
+        try {
+            DomainWorker.run(host, port);
+        } catch (IOException e) {
+            System.err.println("Domain worker failed: " + e.getMessage());
+        }
+    }
+
+    private static Process launchWorkerJvm(String host, int port) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classPath;
+        try {
+            classPath = new File(DomainWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        } catch (URISyntaxException e) {
+            throw new IOException("Cannot locate worker classes", e);
+        }
+        return new ProcessBuilder(java, "-cp", classPath, DomainWorker.class.getName(), host, String.valueOf(port))
+                .inheritIO()
+                .start();
+    }
+
+    private void acceptWorkers(int workerCount) throws IOException {
+        server.configureBlocking(false);
+        long deadline = System.currentTimeMillis() + Constants.DISTRIBUTED_CONNECT_TIMEOUT_MS;
+        try (Selector selector = Selector.open()) {
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            while (workers.size() < workerCount) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IOException("Only " + workers.size() + " of " + workerCount + " workers connected");
+                }
+                selector.select(remaining);
+                selector.selectedKeys().clear();
+                SocketChannel channel;
+                while ((channel = server.accept()) != null) {
+                    channel.configureBlocking(true);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    workers.add(channel);
+                }
+            }
+        }
+    }
+
+    // Reservoir sample of at most DISTRIBUTED_PARTITION_SAMPLE_SIZE rows
+    private static List<BodyState> samplePositions(Path file) throws IOException {
+        int capacity = Constants.DISTRIBUTED_PARTITION_SAMPLE_SIZE;
+        List<BodyState> sample = new ArrayList<>();
+        Random random = new Random(1);
+        int[] seen = {0};
+        BodyFileReader.read(file, (id, mass, radius, x, y, vx, vy, webColor, argb) -> {
+            int index = seen[0]++;
+            if (index < capacity) {
+                sample.add(new BodyState(id, mass, radius, x, y, vx, vy));
+            } else {
+                int slot = random.nextInt(index + 1);
+                if (slot < capacity) sample.set(slot, new BodyState(id, mass, radius, x, y, vx, vy));
+            }
+        });
+        return sample;
+    }
+
+    // Partitions on a position sample, then hands each worker its bounds and initial bodies:
+    // those of {@code bodies} inside its bounds, plus any it loads itself from {@code file}
+    private void initialize(List<BodyState> sample, List<BodyState> bodies, Path file) throws IOException {
+        int n = workers.size();
+        domains = DomainPartitioner.partition(sample, n);
+        List<List<BodyState>> owned = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) owned.add(new ArrayList<>());
+        for (BodyState b : bodies) {
+            int d = DomainPartitioner.findDomain(domains, b.x, b.y);
+            if (d >= 0) owned.get(d).add(b);
+        }
+        for (int w = 0; w < n; w++) {
+            DomainMessage init = new DomainMessage(DomainMessage.INIT).putInt(w).putInt(n);
+            domains.forEach(init::putBounds);
+            init.putDouble(Constants.GRAVITATIONAL_CONSTANT)
+                .putDouble(Constants.MIN_DISTANCE_SQ)
+                .putDouble(Constants.DISTRIBUTED_OPENING_ANGLE)
+                .putBodies(owned.get(w))
+                .putString(file == null ? "" : file.toString())
+                .writeTo(workers.get(w));
+        }
+        fields = new Field[n][n];
+        pendingMigrants = new ArrayList<>(n);
+        bodyCounts = new int[n];
+        for (int w = 0; w < n; w++) {
+            pendingMigrants.add(new ArrayList<>());
+        }
+        readReports(null);
+        int viewMax = Constants.DISTRIBUTED_VIEW_MAX_BODIES;
+        viewStride = Math.max(1, (getBodyCount() + viewMax - 1) / viewMax);
+    }
+
+    /**
+     * Whether snapshots report the body with this id. The subset is chosen by id hash
+     * when the run starts and does not change, so a view can keep exactly these bodies.
+     */
+    public boolean isViewed(String id) {
+        return BodyState.viewHash(id) % viewStride == 0;
+    }
+
+    /**
+     * Runs {@code steps} equal steps covering {@code totalTime} and returns a downsampled
+     * snapshot of the final state (at most DISTRIBUTED_SNAPSHOT_MAX_BODIES bodies).
+     */
+    public List<BodyState> advance(double totalTime, int steps) throws IOException {
+        List<BodyState> snapshot = null;
+        for (int i = 0; i < steps; i++) {
+            snapshot = step(totalTime / steps, i == steps - 1);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Advances one step. Returns a snapshot sample if requested, else null. Successive
+     * snapshots rotate through the viewed bodies, so each of them is eventually reported.
+     */
+    public List<BodyState> step(double dt, boolean takeSnapshot) throws IOException {
+        int n = workers.size();
+        int viewCount = (getBodyCount() + viewStride - 1) / viewStride;
+        int snapshotMax = Constants.DISTRIBUTED_SNAPSHOT_MAX_BODIES;
+        int stride = takeSnapshot ? Math.max(1, (viewCount + snapshotMax - 1) / snapshotMax) : 0;
+        int offset = stride > 0 ? (int) (snapshotCount++ % stride) : 0;
+        for (int w = 0; w < n; w++) {
+            DomainMessage message = new DomainMessage(DomainMessage.STEP)
+                    .putDouble(dt).putInt(viewStride).putInt(stride).putInt(offset)
+                    .putBodies(pendingMigrants.get(w))
+                    .putInt(n - 1);
+            for (int d = 0; d < n; d++) {
+                if (d == w) continue;
+                // Bodies in transit to d are sent directly, so no one loses sight of them for a step
+                List<BodyState> remote = fields[d][w].bodies;
+                if (!pendingMigrants.get(d).isEmpty()) {
+                    remote = new ArrayList<>(remote);
+                    remote.addAll(pendingMigrants.get(d));
+                }
+                message.putSummaries(fields[d][w].summaries).putBodies(remote);
+            }
+            message.writeTo(workers.get(w));
+        }
+        for (List<BodyState> migrants : pendingMigrants) migrants.clear();
+
+        List<BodyState> snapshot = takeSnapshot ? new ArrayList<>() : null;
+        readReports(snapshot);
+        stepCount++;
+        if (Constants.DISTRIBUTED_REBALANCE_INTERVAL > 0 && stepCount % Constants.DISTRIBUTED_REBALANCE_INTERVAL == 0) {
+            rebalance();
+        }
+        return snapshot;
+    }
+
+    // Re-partitions on a uniform position sample from every domain. Workers keep the bodies
+    // still inside their new bounds and report the rest as migrants.
+    private void rebalance() throws IOException {
+        int stride = Math.max(1, getBodyCount() / Constants.DISTRIBUTED_PARTITION_SAMPLE_SIZE);
+        for (SocketChannel worker : workers) {
+            new DomainMessage(DomainMessage.SAMPLE).putInt(stride).writeTo(worker);
+        }
+        List<BodyState> sample = new ArrayList<>();
+        for (SocketChannel worker : workers) {
+            sample.addAll(DomainMessage.readFrom(worker).expect(DomainMessage.BODIES).getBodies());
+        }
+        domains = DomainPartitioner.partition(sample, workers.size());
+        for (SocketChannel worker : workers) {
+            DomainMessage message = new DomainMessage(DomainMessage.REBALANCE).putInt(domains.size());
+            domains.forEach(message::putBounds);
+            message.writeTo(worker);
+        }
+        // Bodies already in transit go to their owner under the new bounds
+        List<BodyState> inTransit = new ArrayList<>();
+        for (List<BodyState> migrants : pendingMigrants) {
+            inTransit.addAll(migrants);
+            migrants.clear();
+        }
+        inTransit.forEach(this::route);
+        readReports(null);
+    }
+
+    private void readReports(List<BodyState> snapshot) throws IOException {
+        for (int w = 0; w < workers.size(); w++) {
+            DomainMessage report = DomainMessage.readFrom(workers.get(w)).expect(DomainMessage.REPORT);
+            for (int d = 0; d < workers.size(); d++) {
+                if (d != w) fields[w][d] = new Field(report.getSummaries(), report.getBodies());
+            }
+            report.getBodies().forEach(this::route);
+            List<BodyState> sample = report.getBodies();
+            if (snapshot != null) snapshot.addAll(sample);
+            bodyCounts[w] = report.getInt();
+        }
+    }
+
+    private void route(BodyState migrant) {
+        int d = DomainPartitioner.findDomain(domains, migrant.x, migrant.y);
+        if (d >= 0) pendingMigrants.get(d).add(migrant);
+        else System.err.println("Warning: Dropping body with invalid position: " + migrant.id);
+    }
+
+    /**
+     * Gathers every body from the workers into this process, leaving them empty. Only
+     * for runs small enough to hold in one heap, e.g. to hand the final state back to
+     * a local Simulator.
+     */
+    public List<BodyState> collectAll() throws IOException {
+        for (SocketChannel worker : workers) {
+            new DomainMessage(DomainMessage.COLLECT).writeTo(worker);
+        }
+        List<BodyState> all = new ArrayList<>(getBodyCount());
+        for (SocketChannel worker : workers) {
+            all.addAll(DomainMessage.readFrom(worker).expect(DomainMessage.BODIES).getBodies());
+        }
+        for (List<BodyState> migrants : pendingMigrants) {
+            all.addAll(migrants);
+            migrants.clear();
+        }
+        return all;
+    }
+
+    public int getBodyCount() {
+        int total = 0;
+        for (int count : bodyCounts) total += count;
+        for (List<BodyState> migrants : pendingMigrants) total += migrants.size();
+        return total;
+    }
+
+    public List<DomainBounds> getDomains() { return domains; }
+    public long getStepCount() { return stepCount; }
+
+    @Override
+    public void close() {
+        for (SocketChannel worker : workers) {
+            try {
+                new DomainMessage(DomainMessage.SHUTDOWN).writeTo(worker);
+                worker.close();
+            } catch (IOException e) {
+                // Worker already gone
+            }
+        }
+        try {
+            server.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+        for (Process process : workerProcesses) {
+            try {
+                if (!process.waitFor(2, java.util.concurrent.TimeUnit.SECONDS)) process.destroy();
+            } catch (InterruptedException e) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Headless smoke run on localhost: {@code DomainCoordinator <workers> <bodies> <steps> [--threads] [--compare]}.
+     * Simulates the Sun, the giant planets and 1e-6 solar mass debris, so cross-domain
+     * forces are comparable to the planets' own. Prints step throughput and the drift in
+     * total momentum; with --compare, also the largest position difference from the same
+     * run on a single domain, where every force is direct.
+     */
+    public static void main(String[] args) throws IOException {
+        int workerCount = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int bodyCount = args.length > 1 ? Integer.parseInt(args[1]) : 4000;
+        int steps = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        List<String> flags = List.of(args).subList(Math.min(args.length, 3), args.length);
+        boolean threads = flags.contains("--threads");
+
+        List<BodyState> bodies = createTestBodies(bodyCount);
+        double[] initialMomentum = momentum(bodies);
+        long start = System.nanoTime();
+        List<BodyState> result = run(bodies, workerCount, !threads, steps);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double[] finalMomentum = momentum(result);
+        System.out.printf("%d bodies, %d workers: %.2f steps/s, %d bodies returned, momentum drift (%.3e, %.3e)%n",
+                bodyCount, workerCount, steps / seconds, result.size(),
+                finalMomentum[0] - initialMomentum[0], finalMomentum[1] - initialMomentum[1]);
+
+        if (flags.contains("--compare")) {
+            Map<String, BodyState> reference = new HashMap<>();
+            for (BodyState b : run(createTestBodies(bodyCount), 1, !threads, steps)) reference.put(b.id, b);
+            double maxError = 0;
+            String worst = null;
+            for (BodyState b : result) {
+                BodyState r = reference.get(b.id);
+                double error = Math.hypot(b.x - r.x, b.y - r.y);
+                if (error > maxError) {
+                    maxError = error;
+                    worst = b.id;
+                }
+            }
+            System.out.printf("Max position difference from a single domain: %.3e AU (%s)%n", maxError, worst);
+        }
+    }
+
+    private static List<BodyState> run(List<BodyState> bodies, int workerCount, boolean separateJvms, int steps) throws IOException {
+        try (DomainCoordinator coordinator = new DomainCoordinator(bodies, workerCount, separateJvms)) {
+            for (int i = 0; i < steps; i++) {
+                coordinator.step(Constants.TIME_STEP, i % 10 == 0);
+            }
+            return coordinator.collectAll();
+        }
+    }
+
+    private static List<BodyState> createTestBodies(int count) {
+        Random random = new Random(42);
+        List<BodyState> bodies = new ArrayList<>(count);
+        bodies.add(new BodyState("Sun", 1.0, 0.005, 0, 0, 0, 0));
+        double[][] planets = {{5.2, 9.548e-4}, {9.58, 2.857e-4}, {19.22, 4.366e-5}, {30.05, 5.151e-5}};
+        for (int i = 0; i < planets.length && bodies.size() < count; i++) {
+            double speed = Math.sqrt(Constants.GRAVITATIONAL_CONSTANT / planets[i][0]);
+            bodies.add(new BodyState("Planet-" + i, planets[i][1], 0.0005, planets[i][0], 0, 0, speed));
+        }
+        while (bodies.size() < count) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = 1 + random.nextDouble() * 30;
+            double speed = Math.sqrt(Constants.GRAVITATIONAL_CONSTANT / distance);
+            bodies.add(new BodyState("B" + bodies.size(), 1e-6, 1e-5, distance * Math.cos(angle), distance * Math.sin(angle),
+                    -speed * Math.sin(angle), speed * Math.cos(angle)));
+        }
+        return bodies;
+    }
+
+    private static final class Field {
+        final List<DomainSummary> summaries;
+        final List<BodyState> bodies;
+
+        Field(List<DomainSummary> summaries, List<BodyState> bodies) {
+            this.summaries = summaries;
+            this.bodies = bodies;
+        }
+    }
+
+    private static double[] momentum(List<BodyState> bodies) {
+        double px = 0, py = 0;
+        for (BodyState b : bodies) {
+            px += b.mass * b.vx;
+            py += b.mass * b.vy;
+        }
+        return new double[] {px, py};
+    }
+}
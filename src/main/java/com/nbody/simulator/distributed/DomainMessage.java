@@ -0,0 +1,181 @@
+package com.nbody.simulator.distributed;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Length-prefixed frame exchanged between coordinator and workers:
+ * {@code [int payloadLength][byte type][payload]}. Built with the put methods,
+ * read back in the same order with the get methods.
+ */
+final class DomainMessage {
+    /**
+     * Coordinator to worker: domain index, all bounds, physics constants, owned bodies, and a
+     * file path (empty for none) from which the worker loads the bodies in its own bounds.
+     * Answered with REPORT.
+     */
+    static final byte INIT = 1;
+    /** Coordinator to worker: dt, view and snapshot sampling, migrants, then per other domain its summaries and direct bodies. Answered with REPORT. */
+    static final byte STEP = 2;
+    /** Worker to coordinator: per other domain the summaries and direct bodies it needs, then migrants, snapshot sample, body count. */
+    static final byte REPORT = 3;
+    /** Coordinator to worker: hand back all bodies and become empty. Answered with BODIES. */
+    static final byte COLLECT = 4;
+    static final byte BODIES = 5;
+    static final byte SHUTDOWN = 6;
+    /** Coordinator to worker: sampling stride. Answered with BODIES holding every stride-th owned body. */
+    static final byte SAMPLE = 7;
+    /** Coordinator to worker: new bounds for every domain. Bodies now outside its own leave as migrants in the REPORT answer. */
+    static final byte REBALANCE = 8;
+    /** Worker to coordinator, in place of the expected answer: an error message. */
+    static final byte ERROR = 9;
+
+    private static final int HEADER_BYTES = 5;
+
+    final byte type;
+    private ByteBuffer buffer;
+
+    DomainMessage(byte type) {
+        this.type = type;
+        this.buffer = ByteBuffer.allocate(1024);
+    }
+
+    private DomainMessage(byte type, ByteBuffer payload) {
+        this.type = type;
+        this.buffer = payload;
+    }
+
+    // --- Writing ---
+
+    DomainMessage putInt(int value) {
+        ensureCapacity(4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    DomainMessage putDouble(double value) {
+        ensureCapacity(8);
+        buffer.putDouble(value);
+        return this;
+    }
+
+    DomainMessage putString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+        return this;
+    }
+
+    DomainMessage putBounds(DomainBounds bounds) {
+        return putDouble(bounds.minX).putDouble(bounds.maxX).putDouble(bounds.minY).putDouble(bounds.maxY);
+    }
+
+    DomainMessage putSummaries(List<DomainSummary> summaries) {
+        putInt(summaries.size());
+        for (DomainSummary s : summaries) {
+            putDouble(s.mass).putDouble(s.comX).putDouble(s.comY)
+                .putDouble(s.qxx).putDouble(s.qxy).putDouble(s.qyy).putDouble(s.radius);
+        }
+        return this;
+    }
+
+    DomainMessage putBodies(List<BodyState> bodies) {
+        putInt(bodies.size());
+        for (BodyState b : bodies) {
+            byte[] id = b.id.getBytes(StandardCharsets.UTF_8);
+            ensureCapacity(4 + id.length + 6 * 8);
+            buffer.putInt(id.length).put(id);
+            buffer.putDouble(b.mass).putDouble(b.radius)
+                  .putDouble(b.x).putDouble(b.y).putDouble(b.vx).putDouble(b.vy);
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) return;
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer larger = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+
+    void writeTo(SocketChannel channel) throws IOException {
+        buffer.flip();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(buffer.remaining()).put(type).flip();
+        ByteBuffer[] frame = {header, buffer};
+        while (header.hasRemaining() || buffer.hasRemaining()) {
+            channel.write(frame);
+        }
+    }
+
+    // --- Reading ---
+
+    static DomainMessage readFrom(SocketChannel channel) throws IOException {
+        ByteBuffer header = readFully(channel, HEADER_BYTES);
+        int length = header.getInt();
+        byte type = header.get();
+        return new DomainMessage(type, readFully(channel, length));
+    }
+
+    private static ByteBuffer readFully(SocketChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Connection closed mid-frame");
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    int getInt() { return buffer.getInt(); }
+    double getDouble() { return buffer.getDouble(); }
+
+    String getString() {
+        byte[] bytes = new byte[getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    DomainBounds getBounds() {
+        return new DomainBounds(getDouble(), getDouble(), getDouble(), getDouble());
+    }
+
+    List<DomainSummary> getSummaries() {
+        int count = getInt();
+        List<DomainSummary> summaries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            summaries.add(new DomainSummary(getDouble(), getDouble(), getDouble(),
+                    getDouble(), getDouble(), getDouble(), getDouble()));
+        }
+        return summaries;
+    }
+
+    List<BodyState> getBodies() {
+        int count = getInt();
+        List<BodyState> bodies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] id = new byte[getInt()];
+            buffer.get(id);
+            bodies.add(new BodyState(new String(id, StandardCharsets.UTF_8),
+                    getDouble(), getDouble(), getDouble(), getDouble(), getDouble(), getDouble()));
+        }
+        return bodies;
+    }
+
+    DomainMessage expect(byte expectedType) throws IOException {
+        if (type == ERROR) {
+            throw new IOException("Worker failed: " + getString());
+        }
+        if (type != expectedType) {
+            throw new IOException("Unexpected message type " + type + ", expected " + expectedType);
+        }
+        return this;
+    }
+}
@@ -0,0 +1,80 @@
+package com.nbody.simulator.distributed;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orthogonal recursive bisection: splits the plane along the axis of largest body
+ * spread so each domain gets a share of bodies proportional to its share of workers.
+ */
+public final class DomainPartitioner {
+    private DomainPartitioner() {}
+
+    public static List<DomainBounds> partition(List<BodyState> bodies, int domainCount) {
+        if (domainCount < 1) throw new IllegalArgumentException("domainCount must be at least 1");
+        List<DomainBounds> domains = new ArrayList<>(domainCount);
+        bisect(new ArrayList<>(bodies), DomainBounds.unbounded(), domainCount, domains);
+        return domains;
+    }
+
+    /**
+     * Index of the domain containing the position, or -1 if none (only for NaN positions).
+     */
+    public static int findDomain(List<DomainBounds> domains, double x, double y) {
+        for (int i = 0; i < domains.size(); i++) {
+            if (domains.get(i).contains(x, y)) return i;
+        }
+        return -1;
+    }
+
+    private static void bisect(List<BodyState> bodies, DomainBounds bounds, int domainCount, List<DomainBounds> out) {
+        if (domainCount == 1) {
+            out.add(bounds);
+            return;
+        }
+        boolean splitX = spread(bodies, true) >= spread(bodies, false);
+        bodies.sort(Comparator.comparingDouble(b -> splitX ? b.x : b.y));
+
+        int leftDomains = domainCount / 2;
+        int n = bodies.size();
+        int mid = (int) ((long) n * leftDomains / domainCount);
+        double split;
+        if (n == 0) {
+            split = splitX ? midpoint(bounds.minX, bounds.maxX) : midpoint(bounds.minY, bounds.maxY);
+        } else if (mid == 0) {
+            split = coordinate(bodies.get(0), splitX);
+        } else if (mid == n) {
+            split = Math.nextUp(coordinate(bodies.get(n - 1), splitX));
+        } else {
+            split = (coordinate(bodies.get(mid - 1), splitX) + coordinate(bodies.get(mid), splitX)) / 2.0;
+        }
+
+        DomainBounds left = splitX ? bounds.withMaxX(split) : bounds.withMaxY(split);
+        DomainBounds right = splitX ? bounds.withMinX(split) : bounds.withMinY(split);
+        bisect(new ArrayList<>(bodies.subList(0, mid)), left, leftDomains, out);
+        bisect(new ArrayList<>(bodies.subList(mid, n)), right, domainCount - leftDomains, out);
+    }
+
+    private static double spread(List<BodyState> bodies, boolean xAxis) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (BodyState b : bodies) {
+            double c = coordinate(b, xAxis);
+            min = Math.min(min, c);
+            max = Math.max(max, c);
+        }
+        return bodies.isEmpty() ? 0 : max - min;
+    }
+
+    private static double coordinate(BodyState b, boolean xAxis) {
+        return xAxis ? b.x : b.y;
+    }
+
+    // Split point for an empty region, which may be unbounded on either side
+    private static double midpoint(double min, double max) {
+        if (Double.isInfinite(min) && Double.isInfinite(max)) return 0.0;
+        if (Double.isInfinite(min)) return max - 1.0;
+        if (Double.isInfinite(max)) return min + 1.0;
+        return (min + max) / 2.0;
+    }
+}
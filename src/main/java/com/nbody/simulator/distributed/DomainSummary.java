@@ -0,0 +1,66 @@
+package com.nbody.simulator.distributed;
+
+import java.util.List;
+
+/**
+ * Monopole and quadrupole moments of a set of bodies about their center of mass,
+ * used for the far-field pull of part of another worker's domain. {@code radius} is
+ * the largest distance of any body from the center of mass; the expansion only
+ * converges outside it.
+ */
+public class DomainSummary {
+    public static final DomainSummary EMPTY = new DomainSummary(0, 0, 0, 0, 0, 0, 0);
+
+    public final double mass;
+    public final double comX, comY;
+    // Traceless quadrupole tensor components (planar bodies, z = 0)
+    public final double qxx, qxy, qyy;
+    public final double radius;
+
+    public DomainSummary(double mass, double comX, double comY, double qxx, double qxy, double qyy, double radius) {
+        this.mass = mass;
+        this.comX = comX;
+        this.comY = comY;
+        this.qxx = qxx;
+        this.qxy = qxy;
+        this.qyy = qyy;
+        this.radius = radius;
+    }
+
+    public static DomainSummary of(List<BodyState> bodies) {
+        double mass = 0, mx = 0, my = 0;
+        for (BodyState b : bodies) {
+            mass += b.mass;
+            mx += b.mass * b.x;
+            my += b.mass * b.y;
+        }
+        if (mass == 0) return EMPTY;
+        double comX = mx / mass, comY = my / mass;
+        double qxx = 0, qxy = 0, qyy = 0, radiusSq = 0;
+        for (BodyState b : bodies) {
+            double dx = b.x - comX, dy = b.y - comY;
+            qxx += b.mass * (2 * dx * dx - dy * dy);
+            qxy += b.mass * 3 * dx * dy;
+            qyy += b.mass * (2 * dy * dy - dx * dx);
+            radiusSq = Math.max(radiusSq, dx * dx + dy * dy);
+        }
+        return new DomainSummary(mass, comX, comY, qxx, qxy, qyy, Math.sqrt(radiusSq));
+    }
+
+    /**
+     * Adds G times this summary's acceleration at (x, y) into {@code acc[0..1]}.
+     */
+    public void addAcceleration(double x, double y, double G, double minDistanceSq, double[] acc) {
+        if (mass == 0) return;
+        double rx = x - comX, ry = y - comY;
+        double r2 = Math.max(rx * rx + ry * ry, minDistanceSq);
+        double r = Math.sqrt(r2);
+        double inv3 = 1.0 / (r2 * r);
+        double inv5 = inv3 / r2;
+        double qrx = qxx * rx + qxy * ry;
+        double qry = qxy * rx + qyy * ry;
+        double rqr = rx * qrx + ry * qry;
+        acc[0] += G * (-mass * rx * inv3 + qrx * inv5 - 2.5 * rqr * rx * inv5 / r2);
+        acc[1] += G * (-mass * ry * inv3 + qry * inv5 - 2.5 * rqr * ry * inv5 / r2);
+    }
+}
@@ -0,0 +1,71 @@
+package com.nbody.simulator.distributed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Quadtree over one domain's bodies with a multipole summary per node. Another
+ * domain receives the tree cut by the opening criterion for its bounds: nodes far
+ * enough away that their expansion converges well anywhere in it are sent as
+ * summaries, and leaves that are too close are sent as their bodies.
+ */
+final class DomainTree {
+    private static final int LEAF_SIZE = 16;
+    private static final int MAX_DEPTH = 32;
+
+    private final DomainSummary summary;
+    private final List<BodyState> bodies; // leaves only
+    private final DomainTree[] children;  // null for leaves; empty quadrants are null
+
+    static DomainTree build(List<BodyState> bodies) {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (BodyState b : bodies) {
+            minX = Math.min(minX, b.x);
+            minY = Math.min(minY, b.y);
+            maxX = Math.max(maxX, b.x);
+            maxY = Math.max(maxY, b.y);
+        }
+        return new DomainTree(bodies, minX, minY, Math.max(maxX - minX, maxY - minY), 0);
+    }
+
+    private DomainTree(List<BodyState> bodies, double minX, double minY, double size, int depth) {
+        summary = DomainSummary.of(bodies);
+        if (bodies.size() <= LEAF_SIZE || depth == MAX_DEPTH || !(size > 0)) {
+            this.bodies = bodies;
+            this.children = null;
+            return;
+        }
+        double half = size / 2.0;
+        List<List<BodyState>> quadrants = new ArrayList<>(4);
+        for (int q = 0; q < 4; q++) quadrants.add(new ArrayList<>());
+        for (BodyState b : bodies) {
+            int q = (b.x >= minX + half ? 1 : 0) + (b.y >= minY + half ? 2 : 0);
+            quadrants.get(q).add(b);
+        }
+        this.bodies = null;
+        this.children = new DomainTree[4];
+        for (int q = 0; q < 4; q++) {
+            if (quadrants.get(q).isEmpty()) continue;
+            children[q] = new DomainTree(quadrants.get(q), minX + (q & 1) * half, minY + (q >> 1) * half, half, depth + 1);
+        }
+    }
+
+    /**
+     * Appends what a domain with bounds {@code target} needs to feel these bodies: a node
+     * is summarized if its center of mass is farther than radius / openingAngle from every
+     * point of the target, otherwise it is opened, down to the bodies of its leaves.
+     */
+    void collect(DomainBounds target, double openingAngle, List<DomainSummary> summaries, List<BodyState> direct) {
+        if (summary.mass == 0) return;
+        if (target.distanceTo(summary.comX, summary.comY) * openingAngle > summary.radius) {
+            summaries.add(summary);
+        } else if (children == null) {
+            direct.addAll(bodies);
+        } else {
+            for (DomainTree child : children) {
+                if (child != null) child.collect(target, openingAngle, summaries, direct);
+            }
+        }
+    }
+}
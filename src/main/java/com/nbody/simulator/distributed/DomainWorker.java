@@ -0,0 +1,222 @@
+package com.nbody.simulator.distributed;
+
+import com.nbody.simulator.BodyFileReader;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Owns the bodies of one spatial domain. Each step it computes direct forces between
+ * its own bodies and the bodies other domains sent directly, adds the far-field pull of
+ * the rest of their mass from multipole summaries, integrates, and hands bodies that
+ * left its bounds back to the coordinator. For each other domain it then cuts its own
+ * DomainTree at the opening angle, so that domain gets what it needs next step.
+ *
+ * Run as its own JVM with {@code DomainWorker <host> <port>}, or in-process via {@link #run}.
+ * Collisions are not handled in distributed mode, and ids loaded from a file are not
+ * checked for duplicates.
+ *
+ */
+public class DomainWorker {
+    private final SocketChannel channel;
+    private List<BodyState> bodies = new ArrayList<>();
+    private List<DomainBounds> domains = new ArrayList<>();
+    private int domainIndex;
+    private double gravitationalConstant;
+    private double minDistanceSq;
+    private double openingAngle;
+
+    private DomainWorker(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DomainWorker <host> <port>");
+            System.exit(2);
+        }
+        run(args[0], Integer.parseInt(args[1]));
+    }
+
+    /**
+     * Connects to the coordinator and serves requests until told to shut down.
+     */
+    public static void run(String host, int port) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            new DomainWorker(channel).serve();
+        }
+    }
+
+    private void serve() throws IOException {
+        while (true) {
+            DomainMessage message = DomainMessage.readFrom(channel);
+            switch (message.type) {
+                case DomainMessage.INIT:
+                    try {
+                        init(message);
+                    } catch (IOException e) {
+                        new DomainMessage(DomainMessage.ERROR).putString(String.valueOf(e.getMessage())).writeTo(channel);
+                        break;
+                    }
+                    report(new ArrayList<>(), 1, 0, 0).writeTo(channel);
+                    break;
+                case DomainMessage.STEP:
+                    step(message).writeTo(channel);
+                    break;
+                case DomainMessage.SAMPLE:
+                    sample(message.getInt()).writeTo(channel);
+                    break;
+                case DomainMessage.REBALANCE:
+                    rebalance(message).writeTo(channel);
+                    break;
+                case DomainMessage.COLLECT:
+                    new DomainMessage(DomainMessage.BODIES).putBodies(bodies).writeTo(channel);
+                    bodies = new ArrayList<>();
+                    break;
+                case DomainMessage.SHUTDOWN:
+                    return;
+                default:
+                    throw new IOException("Unknown message type " + message.type);
+            }
+        }
+    }
+
+    private void init(DomainMessage message) throws IOException {
+        domainIndex = message.getInt();
+        readDomains(message);
+        gravitationalConstant = message.getDouble();
+        minDistanceSq = message.getDouble();
+        openingAngle = message.getDouble();
+        bodies = message.getBodies();
+        String path = message.getString();
+        if (!path.isEmpty()) {
+            DomainBounds own = domains.get(domainIndex);
+            BodyFileReader.read(Paths.get(path), (id, mass, radius, x, y, vx, vy, webColor, argb) -> {
+                if (own.contains(x, y)) bodies.add(new BodyState(id, mass, radius, x, y, vx, vy));
+            });
+        }
+    }
+
+    private void readDomains(DomainMessage message) {
+        int domainCount = message.getInt();
+        domains = new ArrayList<>(domainCount);
+        for (int i = 0; i < domainCount; i++) {
+            domains.add(message.getBounds());
+        }
+    }
+
+    private DomainMessage sample(int stride) {
+        List<BodyState> sample = new ArrayList<>(bodies.size() / stride + 1);
+        for (int i = 0; i < bodies.size(); i += stride) {
+            sample.add(bodies.get(i));
+        }
+        return new DomainMessage(DomainMessage.BODIES).putBodies(sample);
+    }
+
+    // Only bodies whose owner changed leave; the coordinator routes them like any migrant
+    private DomainMessage rebalance(DomainMessage message) {
+        readDomains(message);
+        return report(removeMigrants(), 1, 0, 0);
+    }
+
+    private List<BodyState> removeMigrants() {
+        List<BodyState> migrants = new ArrayList<>();
+        List<BodyState> staying = new ArrayList<>(bodies.size());
+        DomainBounds own = domains.get(domainIndex);
+        for (BodyState b : bodies) {
+            (own.contains(b.x, b.y) ? staying : migrants).add(b);
+        }
+        bodies = staying;
+        return migrants;
+    }
+
+    private DomainMessage step(DomainMessage message) {
+        double dt = message.getDouble();
+        int viewStride = message.getInt();
+        int snapshotStride = message.getInt();
+        int snapshotOffset = message.getInt();
+        bodies.addAll(message.getBodies());
+        int remoteCount = message.getInt();
+        List<DomainSummary> remoteSummaries = new ArrayList<>();
+        List<BodyState> remoteBodies = new ArrayList<>();
+        for (int i = 0; i < remoteCount; i++) {
+            remoteSummaries.addAll(message.getSummaries());
+            remoteBodies.addAll(message.getBodies());
+        }
+
+        integrate(dt, remoteSummaries, remoteBodies);
+        return report(removeMigrants(), viewStride, snapshotStride, snapshotOffset);
+    }
+
+    private void integrate(double dt, List<DomainSummary> remoteSummaries, List<BodyState> remoteBodies) {
+        int n = bodies.size();
+        double G = gravitationalConstant;
+        double[] ax = new double[n];
+        double[] ay = new double[n];
+        double[] acc = new double[2];
+        for (int i = 0; i < n; i++) {
+            BodyState bi = bodies.get(i);
+            for (int j = i + 1; j < n; j++) {
+                BodyState bj = bodies.get(j);
+                double rx = bj.x - bi.x, ry = bj.y - bi.y;
+                double d2 = Math.max(rx * rx + ry * ry, minDistanceSq);
+                double inv3 = G / (d2 * Math.sqrt(d2));
+                ax[i] += bj.mass * rx * inv3;
+                ay[i] += bj.mass * ry * inv3;
+                ax[j] -= bi.mass * rx * inv3;
+                ay[j] -= bi.mass * ry * inv3;
+            }
+            for (BodyState g : remoteBodies) {
+                double rx = g.x - bi.x, ry = g.y - bi.y;
+                double d2 = Math.max(rx * rx + ry * ry, minDistanceSq);
+                double inv3 = G / (d2 * Math.sqrt(d2));
+                ax[i] += g.mass * rx * inv3;
+                ay[i] += g.mass * ry * inv3;
+            }
+            acc[0] = 0;
+            acc[1] = 0;
+            for (DomainSummary s : remoteSummaries) {
+                s.addAcceleration(bi.x, bi.y, G, minDistanceSq, acc);
+            }
+            ax[i] += acc[0];
+            ay[i] += acc[1];
+        }
+        // Same semi-implicit Euler as Body.update
+        for (int i = 0; i < n; i++) {
+            BodyState b = bodies.get(i);
+            b.vx += ax[i] * dt;
+            b.vy += ay[i] * dt;
+            b.x += b.vx * dt;
+            b.y += b.vy * dt;
+        }
+    }
+
+    // Every body ends up either in exactly one summary or in the direct list, so nothing is counted twice.
+    // The snapshot sample is the part of the view subset (hash divisible by viewStride) in this snapshot's slot.
+    private DomainMessage report(List<BodyState> migrants, int viewStride, int snapshotStride, int snapshotOffset) {
+        DomainMessage report = new DomainMessage(DomainMessage.REPORT);
+        DomainTree tree = DomainTree.build(bodies);
+        for (int d = 0; d < domains.size(); d++) {
+            if (d == domainIndex) continue;
+            List<DomainSummary> summaries = new ArrayList<>();
+            List<BodyState> direct = new ArrayList<>();
+            tree.collect(domains.get(d), openingAngle, summaries, direct);
+            report.putSummaries(summaries).putBodies(direct);
+        }
+        List<BodyState> sample = new ArrayList<>();
+        for (int i = 0; snapshotStride > 0 && i < bodies.size(); i++) {
+            long hash = BodyState.viewHash(bodies.get(i).id);
+            if (hash % viewStride == 0 && (hash / viewStride) % snapshotStride == snapshotOffset) sample.add(bodies.get(i));
+        }
+        return report
+                .putBodies(migrants)
+                .putBodies(sample)
+                .putInt(bodies.size());
+    }
+}